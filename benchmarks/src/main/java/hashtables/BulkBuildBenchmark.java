@@ -0,0 +1,64 @@
+package hashtables;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Time to build an OpenAddressingFlatHash2K from all keys at once: a
+ * sequential put() loop (which grows the table about log2(keys) times)
+ * against OpenAddressingFlatHash2K.build() on the common ForkJoinPool.
+ *
+ * Every operation is one complete build, timed on its own. The largest key
+ * count needs a few GB of heap.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class BulkBuildBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Input {
+		@Param({ "1000000", "10000000", "50000000" })
+		public int keys;
+
+		Integer[] intKeys;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			SplittableRandom rng = new SplittableRandom(1);
+			this.intKeys = new Integer[this.keys];
+			for (int i = 0; i < this.keys; i++) {
+				this.intKeys[i] = Integer.valueOf(rng.nextInt());
+			}
+		}
+	}
+
+	@Benchmark
+	public HashTable<Integer, Integer> sequentialPut(Input in) {
+		OpenAddressingFlatHash2K<Integer, Integer> h = new OpenAddressingFlatHash2K<>();
+		for (Integer k : in.intKeys) {
+			h.put(k, k);
+		}
+		return h;
+	}
+
+	@Benchmark
+	public HashTable<Integer, Integer> parallelBuild(Input in) {
+		return OpenAddressingFlatHash2K.build(in.intKeys, in.intKeys);
+	}
+}
@@ -0,0 +1,156 @@
+package hashtables;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * A cache-aside loop over a Zipf-distributed key stream: get() the next key
+ * and put() it on a miss. Compares ClockCache with an LRU cache built on
+ * LinkedHashMap in access order.
+ *
+ * Reports ns per request and, through the auxiliary counters, the hits and
+ * misses of the measured iterations; the hit ratio is hits / (hits + misses).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CacheBenchmark {
+	private static final int STREAM_LENGTH = 1 << 22; // Must be a power of two.
+
+	@Param({ "ClockCache", "LinkedHashMapLRU" })
+	public String implementation;
+
+	@Param({ "1000000" })
+	public int distinctKeys;
+
+	@Param({ "10000", "100000" })
+	public int maxEntries;
+
+	// Zipf exponent: 0.99 is the usual model of web and key-value traffic.
+	@Param({ "0.99" })
+	public double skew;
+
+	HashTable<Integer, Integer> cache;
+	Integer[] stream;
+	int next;
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Counters {
+		public long hits;
+		public long misses;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			this.hits = 0;
+			this.misses = 0;
+		}
+	}
+
+	// LRU eviction as LinkedHashMap documents it.
+	static final class LinkedHashMapLRU<K, V> implements HashTable<K, V> {
+		private final LinkedHashMap<K, V> map;
+
+		LinkedHashMapLRU(int maxEntries) {
+			this.map = new LinkedHashMap<>(maxEntries * 4 / 3 + 1, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+					return size() > maxEntries;
+				}
+			};
+		}
+
+		@Override
+		public void put(K key, V value) {
+			this.map.put(key, value);
+		}
+
+		@Override
+		public V get(K key) {
+			return this.map.get(key);
+		}
+
+		@Override
+		public int size() {
+			return this.map.size();
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		switch (this.implementation) {
+		case "ClockCache":
+			this.cache = new ClockCache<>(this.maxEntries);
+			break;
+		case "LinkedHashMapLRU":
+			this.cache = new LinkedHashMapLRU<>(this.maxEntries);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown implementation: " + this.implementation);
+		}
+		// Key i is the i-th most popular; draw ranks from the inverse CDF.
+		double[] cdf = new double[this.distinctKeys];
+		double sum = 0;
+		for (int i = 0; i < this.distinctKeys; i++) {
+			sum += 1 / Math.pow(i + 1, this.skew);
+			cdf[i] = sum;
+		}
+		Integer[] keys = new Integer[this.distinctKeys];
+		SplittableRandom rng = new SplittableRandom(1);
+		for (int i = 0; i < this.distinctKeys; i++) {
+			// Scatter the popular keys over the hash space.
+			keys[i] = Integer.valueOf(rng.nextInt());
+		}
+		this.stream = new Integer[STREAM_LENGTH];
+		for (int i = 0; i < STREAM_LENGTH; i++) {
+			int rank = Arrays.binarySearch(cdf, rng.nextDouble() * sum);
+			this.stream[i] = keys[Math.min(rank < 0 ? -rank - 1 : rank, this.distinctKeys - 1)];
+		}
+		// Warm the cache up, so the first iteration does not measure cold misses.
+		for (Integer k : this.stream) {
+			lookup(k);
+		}
+		this.next = 0;
+	}
+
+	private boolean lookup(Integer key) {
+		if (this.cache.get(key) != null) {
+			return true;
+		}
+		this.cache.put(key, key);
+		return false;
+	}
+
+	@Benchmark
+	public boolean request(Counters counters) {
+		Integer key = this.stream[this.next];
+		this.next = this.next + 1 & STREAM_LENGTH - 1;
+		boolean hit = lookup(key);
+		if (hit) {
+			counters.hits++;
+		} else {
+			counters.misses++;
+		}
+		return hit;
+	}
+}
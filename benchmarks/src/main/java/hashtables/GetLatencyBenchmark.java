@@ -0,0 +1,97 @@
+package hashtables;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Latency distribution of single get() calls on a full table, as in the
+ * GetHitsSS and GetMissSS scenarios, for the worst-case comparison of cuckoo
+ * hashing (at most two buckets) with the probing tables (no bound). JMH's
+ * SampleTime mode reports the percentiles and the max.
+ *
+ * A single get() is close to the resolution of System.nanoTime(), so compare
+ * the upper percentiles rather than the median.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class GetLatencyBenchmark {
+	private static final int SEED = 1;
+	private static final int KEY_LENGTH = 8;
+
+	@State(Scope.Thread)
+	public static class Table {
+		@Param({ "OpenAddressingHash2K", "OpenAddressingFlatHash2K", "RobinHoodHash2K", "SwissHash2K",
+				"CuckooHash2K", "HopscotchHash2K" })
+		public String implementation;
+
+		@Param({ "1000000" })
+		public int keys;
+
+		HashTable<String, String> table;
+		String[] hits;
+		String[] misses;
+		int next;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			SplittableRandom rng = new SplittableRandom(SEED);
+			List<String> strings = new ArrayList<>();
+			for (int i = 0; i < this.keys * 2; i++) {
+				char[] s = new char[KEY_LENGTH];
+				for (int j = 0; j < KEY_LENGTH; j++) {
+					s[j] = (char) ('A' + rng.nextInt(26));
+				}
+				strings.add(String.valueOf(s));
+			}
+			this.table = Implementations.forName(this.implementation).newInstance();
+			for (String s : strings.subList(0, this.keys)) {
+				this.table.put(s, s);
+			}
+			// Random keys of length 8 rarely repeat; drop the few that do.
+			List<String> missList = new ArrayList<>();
+			for (String s : strings.subList(this.keys, this.keys * 2)) {
+				if (this.table.get(s) == null) {
+					missList.add(s);
+				}
+			}
+			List<String> hitList = new ArrayList<>(strings.subList(0, this.keys));
+			Collections.shuffle(hitList, new Random(SEED));
+			this.hits = hitList.toArray(new String[0]);
+			this.misses = missList.toArray(new String[0]);
+		}
+	}
+
+	@Benchmark
+	public String getHit(Table t) {
+		String k = t.hits[t.next];
+		t.next = t.next + 1 == t.hits.length ? 0 : t.next + 1;
+		return t.table.get(k);
+	}
+
+	@Benchmark
+	public String getMiss(Table t) {
+		String k = t.misses[t.next];
+		t.next = t.next + 1 == t.misses.length ? 0 : t.next + 1;
+		return t.table.get(k);
+	}
+}
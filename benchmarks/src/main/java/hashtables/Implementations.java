@@ -0,0 +1,84 @@
+package hashtables;
+
+/*
+ * Maps the names used in the JMH @Param lists to the factories in the main
+ * module. The names match the class names printed by HashShootout so that the
+ * results of the two harnesses can be compared side by side.
+ */
+public enum Implementations {
+	;
+
+	public static HashTableFactory forName(String name) {
+		switch (name) {
+		case "SeparateChainingHash2K":
+			return SeparateChainingHash2K::new;
+		case "SeparateChainingHash2K-incremental":
+			return new HashTableFactory() {
+				@Override
+				public <K, V> HashTable<K, V> newInstance() {
+					return new SeparateChainingHash2K<>(ResizeMode.INCREMENTAL);
+				}
+			};
+		case "SeparateChainingHashPrime":
+			return SeparateChainingHashPrime::new;
+		case "OpenAddressingHash2K":
+			return OpenAddressingHash2K::new;
+		case "OpenAddressingHash2K-incremental":
+			return new HashTableFactory() {
+				@Override
+				public <K, V> HashTable<K, V> newInstance() {
+					return new OpenAddressingHash2K<>(ResizeMode.INCREMENTAL);
+				}
+			};
+		case "OpenAddressingHash2K-triangular":
+			return new HashTableFactory() {
+				@Override
+				public <K, V> HashTable<K, V> newInstance() {
+					return new OpenAddressingHash2K<>(ProbeStrategy.TRIANGULAR);
+				}
+			};
+		case "OpenAddressingHash2K-double-hashing":
+			return new HashTableFactory() {
+				@Override
+				public <K, V> HashTable<K, V> newInstance() {
+					return new OpenAddressingHash2K<>(ProbeStrategy.DOUBLE_HASHING);
+				}
+			};
+		case "OpenAddressingHashPrime":
+			return OpenAddressingHashPrime::new;
+		case "OpenAddressingHashPrime-double-hashing":
+			return new HashTableFactory() {
+				@Override
+				public <K, V> HashTable<K, V> newInstance() {
+					return new OpenAddressingHashPrime<>(ProbeStrategy.DOUBLE_HASHING);
+				}
+			};
+		case "OpenAddressingFlatHash2K":
+			return OpenAddressingFlatHash2K::new;
+		case "OpenAddressingFlatHashPrime":
+			return OpenAddressingFlatHashPrime::new;
+		case "RobinHoodHash2K":
+			return RobinHoodHash2K::new;
+		case "SwissHash2K":
+			return SwissHash2K::new;
+		case "CuckooHash2K":
+			return CuckooHash2K::new;
+		case "HopscotchHash2K":
+			return HopscotchHash2K::new;
+		case "SeparateChainingIntrusiveHash2K":
+			return SeparateChainingIntrusiveHash2K::new;
+		case "SeparateChainingIntrusiveHashPrime":
+			return SeparateChainingIntrusiveHashPrime::new;
+		case "ConcurrentOpenAddressingHash2K":
+			return ConcurrentOpenAddressingHash2K::new;
+		case "ReadMostlyHash2K":
+			return ReadMostlyHash2K::new;
+		case "HashMap":
+			return HashShootout.HashMapAdapter::new;
+		case "ConcurrentHashMap":
+			return HashShootout.ConcurrentHashMapAdapter::new;
+		default:
+			throw new IllegalArgumentException("Unknown implementation: " + name);
+		}
+	}
+}
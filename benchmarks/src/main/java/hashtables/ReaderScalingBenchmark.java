@@ -0,0 +1,124 @@
+package hashtables;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Throughput of get() on a shared table as the number of reader threads
+ * grows, while one background thread keeps putting into the same table.
+ *
+ * JMH's thread count cannot be a @Param, so main() runs the benchmark once for
+ * every reader count in READER_COUNTS (any other JMH options given on the
+ * command line are passed on):
+ *
+ *     java -cp benchmarks/target/benchmarks.jar hashtables.ReaderScalingBenchmark
+ *
+ * The writer starts with half of the keys in the table and puts all keys in
+ * a loop, so it first inserts (and resizes) and then keeps updating values.
+ * writerPauseNanos is how long it parks between two puts; 0 is the worst case
+ * for the readers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ReaderScalingBenchmark {
+	private static final int[] READER_COUNTS = { 1, 2, 4, 8, 16, 32, 64 };
+
+	@State(Scope.Benchmark)
+	public static class SharedTable {
+		@Param({ "ReadMostlyHash2K", "ConcurrentOpenAddressingHash2K", "ConcurrentHashMap" })
+		public String implementation;
+
+		@Param({ "1000000" })
+		public int keys;
+
+		@Param({ "0", "10000" })
+		public long writerPauseNanos;
+
+		Integer[] intKeys;
+		HashTable<Integer, Integer> table;
+		private volatile boolean stopped;
+		private Thread writer;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			SplittableRandom rng = new SplittableRandom(1);
+			this.intKeys = new Integer[this.keys];
+			for (int i = 0; i < this.keys; i++) {
+				this.intKeys[i] = Integer.valueOf(rng.nextInt());
+			}
+			this.table = Implementations.forName(this.implementation).newInstance();
+			for (int i = 0; i < this.keys / 2; i++) {
+				this.table.put(this.intKeys[i], this.intKeys[i]);
+			}
+			this.stopped = false;
+			this.writer = new Thread(this::write, "writer");
+			this.writer.setDaemon(true);
+			this.writer.start();
+		}
+
+		private void write() {
+			int v = 0;
+			while (!this.stopped) {
+				for (int i = 0; i < this.keys && !this.stopped; i++) {
+					this.table.put(this.intKeys[i], v++);
+					if (this.writerPauseNanos > 0) {
+						LockSupport.parkNanos(this.writerPauseNanos);
+					}
+				}
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws InterruptedException {
+			this.stopped = true;
+			this.writer.join();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Reader {
+		SplittableRandom rng;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			// Every reader looks up its own random sequence of keys.
+			this.rng = new SplittableRandom(Thread.currentThread().getId());
+		}
+	}
+
+	@Benchmark
+	public Integer get(SharedTable s, Reader r) {
+		return s.table.get(s.intKeys[r.rng.nextInt(s.keys)]);
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions cmdLine = new CommandLineOptions(args);
+		for (int readers : READER_COUNTS) {
+			new Runner(new OptionsBuilder().parent(cmdLine).include(ReaderScalingBenchmark.class.getName())
+					.threads(readers).build()).run();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package hashtables;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Cost of mapping a hash to a table index: the % the prime tables used to do,
+ * HashUtils.fastMod, and the mask of the 2^k tables for reference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class ReductionBenchmark {
+	private static final int HASHES = 1024;
+
+	// Primes the OpenAddressingHashPrime growth sequence passes through.
+	@Param({ "1031", "1048583" })
+	public int tableSize;
+
+	int[] hashes;
+	long multiplier;
+	int mask;
+
+	@Setup
+	public void setUp() {
+		SplittableRandom rng = new SplittableRandom(1);
+		this.hashes = new int[HASHES];
+		for (int i = 0; i < HASHES; i++) {
+			this.hashes[i] = HashUtils.mix(rng.nextInt()) & 0x7FFFFFFF;
+		}
+		this.multiplier = HashUtils.fastModMultiplier(this.tableSize);
+		this.mask = Integer.highestOneBit(this.tableSize) - 1;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HASHES)
+	public int remainder() {
+		int acc = 0;
+		for (int h : this.hashes) {
+			acc += h % this.tableSize;
+		}
+		return acc;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HASHES)
+	public int fastMod() {
+		int acc = 0;
+		for (int h : this.hashes) {
+			acc += HashUtils.fastMod(h, this.multiplier, this.tableSize);
+		}
+		return acc;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HASHES)
+	public int mask() {
+		int acc = 0;
+		for (int h : this.hashes) {
+			acc += h & this.mask;
+		}
+		return acc;
+	}
+}
@@ -0,0 +1,76 @@
+package hashtables;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Latency distribution of single put() calls into a growing table, to compare
+ * ResizeMode.ALL_AT_ONCE with ResizeMode.INCREMENTAL. JMH's SampleTime mode
+ * reports percentiles up to p99.9999 and the max, which is where the resize
+ * pauses show up.
+ *
+ * The table is filled up to the given number of keys and then started over,
+ * so every iteration sees the full sequence of resizes.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class ResizeLatencyBenchmark {
+
+	@State(Scope.Thread)
+	public static class Table {
+		@Param({ "OpenAddressingHash2K", "OpenAddressingHash2K-incremental", "SeparateChainingHash2K",
+				"SeparateChainingHash2K-incremental" })
+		public String implementation;
+
+		@Param({ "2000000" })
+		public int keys;
+
+		HashTableFactory factory;
+		Integer[] intKeys;
+		HashTable<Integer, Integer> table;
+		int next;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			this.factory = Implementations.forName(this.implementation);
+			SplittableRandom rng = new SplittableRandom(1);
+			this.intKeys = new Integer[this.keys];
+			for (int i = 0; i < this.keys; i++) {
+				this.intKeys[i] = Integer.valueOf(rng.nextInt());
+			}
+		}
+
+		@Setup(Level.Iteration)
+		public void newTable() {
+			this.table = this.factory.newInstance();
+			this.next = 0;
+		}
+	}
+
+	@Benchmark
+	public int put(Table t) {
+		if (t.next == t.keys) {
+			t.table = t.factory.newInstance();
+			t.next = 0;
+		}
+		Integer k = t.intKeys[t.next++];
+		t.table.put(k, k);
+		return t.table.size();
+	}
+}
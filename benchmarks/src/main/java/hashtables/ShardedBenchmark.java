@@ -0,0 +1,161 @@
+package hashtables;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Per-thread shard ownership against one shared concurrent table, in the
+ * MixedSS mix of HashShootout (90 % gets, 10 % puts, half of the keys in the
+ * table to begin with).
+ *
+ * owned: a ShardedHashTable with one single-threaded shard per benchmark
+ * thread. Every request is routed to the shard of its key, and each thread
+ * only serves the requests of its own shard, so no locks, no CAS and no shared
+ * cache lines.
+ *
+ * shared: all threads do random requests against one thread-safe table.
+ *
+ * The thread count must be a power of two. main() runs both for every count in
+ * THREAD_COUNTS:
+ *
+ *     java -cp benchmarks/target/benchmarks.jar hashtables.ShardedBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ShardedBenchmark {
+	private static final int[] THREAD_COUNTS = { 1, 2, 4, 8, 16 };
+	private static final int PUT_PERCENT = 10;
+	private static final int SEED = 1;
+
+	private static Integer[] randomKeys(int keys) {
+		SplittableRandom rng = new SplittableRandom(SEED);
+		Integer[] intKeys = new Integer[keys];
+		for (int i = 0; i < keys; i++) {
+			intKeys[i] = Integer.valueOf(rng.nextInt());
+		}
+		return intKeys;
+	}
+
+	@State(Scope.Benchmark)
+	public static class Owned {
+		@Param({ "OpenAddressingHash2K", "SwissHash2K" })
+		public String shardImplementation;
+
+		@Param({ "1000000" })
+		public int keys;
+
+		ShardedHashTable<Integer, Integer> table;
+		// The keys of every shard, as routed by the table.
+		Integer[][] keysByShard;
+
+		@Setup(Level.Trial)
+		public void setUp(BenchmarkParams params) {
+			int shards = params.getThreads();
+			if (Integer.bitCount(shards) != 1) {
+				throw new IllegalArgumentException("Thread count must be a power of two: " + shards);
+			}
+			this.table = new ShardedHashTable<>(Implementations.forName(this.shardImplementation),
+					Integer.numberOfTrailingZeros(shards));
+			Integer[] intKeys = randomKeys(this.keys);
+			List<List<Integer>> routed = new ArrayList<>();
+			for (int i = 0; i < shards; i++) {
+				routed.add(new ArrayList<>());
+			}
+			for (int i = 0; i < intKeys.length; i++) {
+				routed.get(this.table.shardOf(intKeys[i])).add(intKeys[i]);
+				if (i < intKeys.length / 2) {
+					this.table.put(intKeys[i], intKeys[i]);
+				}
+			}
+			this.keysByShard = new Integer[shards][];
+			for (int i = 0; i < shards; i++) {
+				this.keysByShard[i] = routed.get(i).toArray(new Integer[0]);
+			}
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Shared {
+		@Param({ "ConcurrentOpenAddressingHash2K", "ConcurrentHashMap" })
+		public String implementation;
+
+		@Param({ "1000000" })
+		public int keys;
+
+		HashTable<Integer, Integer> table;
+		Integer[] intKeys;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			this.table = Implementations.forName(this.implementation).newInstance();
+			this.intKeys = randomKeys(this.keys);
+			for (int i = 0; i < this.keys / 2; i++) {
+				this.table.put(this.intKeys[i], this.intKeys[i]);
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Worker {
+		int index;
+		SplittableRandom rng;
+
+		@Setup(Level.Trial)
+		public void setUp(ThreadParams params) {
+			this.index = params.getThreadIndex();
+			this.rng = new SplittableRandom(SEED + this.index);
+		}
+	}
+
+	private static Integer request(HashTable<Integer, Integer> table, Integer[] keys, SplittableRandom rng) {
+		Integer k = keys[rng.nextInt(keys.length)];
+		if (rng.nextInt(100) < PUT_PERCENT) {
+			table.put(k, k);
+			return k;
+		}
+		return table.get(k);
+	}
+
+	@Benchmark
+	public Integer owned(Owned o, Worker w) {
+		return request(o.table.shard(w.index), o.keysByShard[w.index], w.rng);
+	}
+
+	@Benchmark
+	public Integer shared(Shared s, Worker w) {
+		return request(s.table, s.intKeys, w.rng);
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions cmdLine = new CommandLineOptions(args);
+		for (int threads : THREAD_COUNTS) {
+			new Runner(new OptionsBuilder().parent(cmdLine).include(ShardedBenchmark.class.getName())
+					.threads(threads).build()).run();
+		}
+	}
+}
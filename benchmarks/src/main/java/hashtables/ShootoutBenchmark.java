@@ -0,0 +1,238 @@
+package hashtables;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * JMH version of the scenarios in HashShootout.
+ *
+ * Every parameter combination (implementation x key count x key length) runs
+ * in its own forked JVMs, so each fork only ever sees one HashTable
+ * implementation and the call sites stay monomorphic. One benchmark operation
+ * is one full pass over all keys; divide the score by the key count to get the
+ * ns/operation figure HashShootout prints.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class ShootoutBenchmark {
+	private static final int SEED = 1;
+
+	@State(Scope.Benchmark)
+	public abstract static class Keys {
+		@Param({ "SeparateChainingHash2K", "SeparateChainingHashPrime", "OpenAddressingHash2K",
+				"OpenAddressingHash2K-triangular", "OpenAddressingHash2K-double-hashing", "OpenAddressingHashPrime",
+				"OpenAddressingHashPrime-double-hashing", "OpenAddressingFlatHash2K", "OpenAddressingFlatHashPrime",
+				"RobinHoodHash2K", "SwissHash2K", "CuckooHash2K", "HopscotchHash2K", "SeparateChainingIntrusiveHash2K",
+				"SeparateChainingIntrusiveHashPrime", "ConcurrentOpenAddressingHash2K", "ReadMostlyHash2K", "HashMap",
+				"ConcurrentHashMap" })
+		public String implementation;
+
+		@Param({ "10000", "100000", "1000000" })
+		public int keys;
+
+		HashTableFactory factory;
+		SplittableRandom rng;
+
+		void init() {
+			this.factory = Implementations.forName(this.implementation);
+			this.rng = new SplittableRandom(SEED);
+		}
+
+		String randString(int length) {
+			char[] s = new char[length];
+			for (int i = 0; i < length; i++) {
+				s[i] = (char) ('A' + this.rng.nextInt(26));
+			}
+			return String.valueOf(s);
+		}
+
+		List<String> getRandomStrings(int size, int length) {
+			List<String> strings = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				strings.add(randString(length));
+			}
+			// Deliberately shuffle to not get overly positive results due to
+			// very optimistic cache-hit ratio.
+			Collections.shuffle(strings, new Random(SEED));
+			return strings;
+		}
+
+		HashTable<String, String> buildStringString(List<String> keyList, List<String> valueList) {
+			HashTable<String, String> h = this.factory.newInstance();
+			for (int i = 0; i < keyList.size(); i++) {
+				h.put(keyList.get(i), valueList.get(i));
+			}
+			return h;
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class IntKeys extends Keys {
+		int[] intKeys;
+		int[] intValues;
+
+		@Setup
+		public void setUp() {
+			init();
+			this.intKeys = new int[this.keys];
+			this.intValues = new int[this.keys];
+			for (int i = 0; i < this.keys; i++) {
+				this.intKeys[i] = this.rng.nextInt();
+				this.intValues[i] = this.rng.nextInt();
+			}
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class BadHashKeys {
+		// Only the tables that convert long chains into trees; the others are
+		// quadratic with these keys.
+		@Param({ "SeparateChainingHash2K", "SeparateChainingHashPrime", "HashMap" })
+		public String implementation;
+
+		@Param({ "100000", "1000000" })
+		public int keys;
+
+		HashTableFactory factory;
+		HashShootout.BadHashObject[] badKeys;
+		int[] intValues;
+
+		@Setup
+		public void setUp() {
+			this.factory = Implementations.forName(this.implementation);
+			SplittableRandom rng = new SplittableRandom(SEED);
+			this.badKeys = new HashShootout.BadHashObject[this.keys];
+			this.intValues = new int[this.keys];
+			for (int i = 0; i < this.keys; i++) {
+				this.badKeys[i] = new HashShootout.BadHashObject(rng.nextInt());
+				this.intValues[i] = rng.nextInt();
+			}
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class StringKeys extends Keys {
+		@Param({ "1", "2", "4", "8", "16", "32" })
+		public int keyLength;
+
+		int[] intKeys;
+		List<String> keyList;
+		List<String> valueList;
+		HashTable<String, String> preinserted;
+
+		@Setup
+		public void setUp() {
+			init();
+			this.intKeys = this.rng.ints(this.keys).toArray();
+			this.keyList = getRandomStrings(this.keys, this.keyLength);
+			this.valueList = getRandomStrings(this.keys, this.keyLength);
+			this.preinserted = buildStringString(this.keyList, this.valueList);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class MissingKeys extends Keys {
+		// Shorter keys cannot produce enough distinct misses at the larger key
+		// counts (26^4 < 1M).
+		@Param({ "8", "16", "32" })
+		public int keyLength;
+
+		List<String> missList;
+		HashTable<String, String> preinserted;
+
+		@Setup
+		public void setUp() {
+			init();
+			List<String> keyList = getRandomStrings(this.keys, this.keyLength);
+			this.preinserted = buildStringString(keyList, getRandomStrings(this.keys, this.keyLength));
+			Set<String> present = new HashSet<>(keyList);
+			this.missList = new ArrayList<>();
+			while (this.missList.size() < this.keys) {
+				String s = randString(this.keyLength);
+				if (!present.contains(s)) {
+					this.missList.add(s);
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public int putII(IntKeys s) {
+		HashTable<Integer, Integer> h = s.factory.newInstance();
+		for (int i = 0; i < s.keys; i++) {
+			h.put(s.intKeys[i], s.intValues[i]);
+		}
+		return h.size();
+	}
+
+	@Benchmark
+	public int putBI(BadHashKeys s) {
+		HashTable<HashShootout.BadHashObject, Integer> h = s.factory.newInstance();
+		for (int i = 0; i < s.keys; i++) {
+			h.put(s.badKeys[i], s.intValues[i]);
+		}
+		return h.size();
+	}
+
+	@Benchmark
+	public int putSI(StringKeys s) {
+		HashTable<String, Integer> h = s.factory.newInstance();
+		for (int i = 0; i < s.keys; i++) {
+			h.put(s.keyList.get(i), s.intKeys[i]);
+		}
+		return h.size();
+	}
+
+	@Benchmark
+	public int putSS(StringKeys s) {
+		return s.buildStringString(s.keyList, s.valueList).size();
+	}
+
+	@Benchmark
+	public int putIS(StringKeys s) {
+		HashTable<Integer, String> h = s.factory.newInstance();
+		for (int i = 0; i < s.keys; i++) {
+			h.put(s.intKeys[i], s.valueList.get(i));
+		}
+		return h.size();
+	}
+
+	@Benchmark
+	public int getHitsSS(StringKeys s) {
+		int hits = 0;
+		for (String k : s.keyList) {
+			hits += s.preinserted.get(k) != null ? 1 : 0;
+		}
+		return hits;
+	}
+
+	@Benchmark
+	public int getMissSS(MissingKeys s) {
+		int hits = 0;
+		for (String k : s.missList) {
+			hits += s.preinserted.get(k) != null ? 1 : 0;
+		}
+		return hits;
+	}
+}
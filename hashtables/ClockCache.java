@@ -0,0 +1,253 @@
+package hashtables;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/*
+ * A bounded cache with room for at most maxEntries entries that never grows.
+ * When it is full, put() of a new key evicts an entry chosen by the CLOCK
+ * algorithm, an approximation of LRU: every entry has a reference bit that
+ * get() sets, and a clock hand sweeps over the entries, clearing set bits and
+ * evicting the first entry whose bit is already clear. An entry that is used
+ * at least once per sweep therefore stays, and there is no per-entry list to
+ * update on every hit, so get() only writes one byte (and only if the bit was
+ * clear) and never allocates.
+ *
+ * The entries sit in flat arrays of maxEntries, which the hand sweeps, and a
+ * linear-probing index maps keys to their positions there. (Sweeping the hash
+ * slots themselves would not do: the slots just ahead of the hand would be the
+ * fullest, every eviction would then have to shift back one huge cluster, and
+ * a put() into a full cache of 64K entries took microseconds.)
+ *
+ * Entries can expire a fixed time after they were put, either for all entries
+ * (the ttl constructor) or per entry (put with a ttl). An expired entry is a
+ * miss for get(), is removed when a get() runs into it and is the first to go
+ * when the hand passes it. Until then it still counts in size().
+ *
+ * Removal shifts the following slots of the index cluster back instead of
+ * leaving tombstones (as in RobinHoodHash2K), so a full cache does not fill
+ * up with tombstones and probe sequences stay short.
+ */
+public class ClockCache<K, V> implements HashTable<K, V> {
+	private static final double MAX_LOAD_FACTOR = 0.75;
+	private static final long NEVER = Long.MAX_VALUE;
+	private static final int EMPTY = -1;
+
+	// The index: the position of each key in the entry arrays, or EMPTY.
+	private final int[] index;
+	// The entries, by position; keys[e] is null if e is free.
+	private final Object[] keys;
+	private final Object[] values;
+	private final boolean[] referenced;
+	// Expiry times on the clock, or null if nothing expires. Allocated on the
+	// first put with a ttl.
+	private long[] expiresAt;
+	// The free positions, the next one on top.
+	private final int[] free;
+	private int freeCount;
+	private final int maxEntries;
+	private final long defaultTtlNanos;
+	private final LongSupplier clock;
+	private int hand;
+	private int size;
+
+	/*
+	 * Creates a cache that holds at most maxEntries entries that never expire
+	 * unless put with a ttl.
+	 */
+	public ClockCache(int maxEntries) {
+		this(maxEntries, NEVER, System::nanoTime);
+	}
+
+	/*
+	 * Creates a cache where entries expire ttl after they were put, unless put
+	 * with another ttl.
+	 */
+	public ClockCache(int maxEntries, long ttl, TimeUnit unit) {
+		this(maxEntries, unit.toNanos(ttl), System::nanoTime);
+	}
+
+	// With a clock (in nanoseconds) that tests can control.
+	ClockCache(int maxEntries, long defaultTtlNanos, LongSupplier clock) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+		}
+		this.index = new int[HashUtils.powerOfTwoCapacity(maxEntries, MAX_LOAD_FACTOR, 4)];
+		Arrays.fill(this.index, EMPTY);
+		this.keys = new Object[maxEntries];
+		this.values = new Object[maxEntries];
+		this.referenced = new boolean[maxEntries];
+		this.free = new int[maxEntries];
+		for (int i = 0; i < maxEntries; i++) {
+			this.free[i] = maxEntries - 1 - i;
+		}
+		this.freeCount = maxEntries;
+		this.maxEntries = maxEntries;
+		this.defaultTtlNanos = defaultTtlNanos;
+		this.clock = clock;
+		if (defaultTtlNanos != NEVER) {
+			this.expiresAt = new long[maxEntries];
+		}
+		this.size = 0;
+	}
+
+	@Override
+	public void put(K key, V value) {
+		put(key, value, this.defaultTtlNanos);
+	}
+
+	/*
+	 * Maps key to value until ttl has passed.
+	 */
+	public void put(K key, V value, long ttl, TimeUnit unit) {
+		put(key, value, unit.toNanos(ttl));
+	}
+
+	private void put(K key, V value, long ttlNanos) {
+		if (ttlNanos != NEVER && this.expiresAt == null) {
+			this.expiresAt = new long[this.maxEntries];
+			Arrays.fill(this.expiresAt, NEVER);
+		}
+		int slot = slotOf(key);
+		int e;
+		if (slot < 0) {
+			if (this.size == this.maxEntries) {
+				evict();
+			}
+			e = this.free[--this.freeCount];
+			this.index[freeSlot(key)] = e;
+			this.keys[e] = key;
+			this.referenced[e] = false;
+			this.size++;
+		} else {
+			e = this.index[slot];
+			this.referenced[e] = true;
+		}
+		this.values[e] = value;
+		if (this.expiresAt != null) {
+			this.expiresAt[e] = ttlNanos == NEVER ? NEVER : this.clock.getAsLong() + ttlNanos;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(K key) {
+		int slot = slotOf(key);
+		if (slot < 0) {
+			return null;
+		}
+		int e = this.index[slot];
+		if (this.expiresAt != null && expired(e, this.clock.getAsLong())) {
+			delete(slot);
+			return null;
+		}
+		if (!this.referenced[e]) {
+			// Only write when needed; hot entries then stay clean in the cache.
+			this.referenced[e] = true;
+		}
+		return (V) this.values[e];
+	}
+
+	/*
+	 * Removes key and returns the value it was mapped to, or null if it was not
+	 * in the cache (or had expired).
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(K key) {
+		int slot = slotOf(key);
+		if (slot < 0) {
+			return null;
+		}
+		int e = this.index[slot];
+		V old = this.expiresAt != null && expired(e, this.clock.getAsLong()) ? null : (V) this.values[e];
+		delete(slot);
+		return old;
+	}
+
+	public int maxEntries() {
+		return this.maxEntries;
+	}
+
+	private boolean expired(int e, long now) {
+		// Overflow-safe comparison of nanoTime values.
+		return this.expiresAt[e] != NEVER && now - this.expiresAt[e] >= 0;
+	}
+
+	// Advances the hand until it finds an entry to evict: an expired one, or
+	// one not used since the hand last passed it. Terminates within two sweeps,
+	// since the first one clears every reference bit.
+	private void evict() {
+		long now = this.expiresAt != null ? this.clock.getAsLong() : 0;
+		while (true) {
+			int e = this.hand;
+			this.hand = e + 1 < this.maxEntries ? e + 1 : 0;
+			if (this.keys[e] != null) {
+				if (this.expiresAt != null && expired(e, now) || !this.referenced[e]) {
+					delete(slotOf(this.keys[e]));
+					return;
+				}
+				this.referenced[e] = false;
+			}
+		}
+	}
+
+	private int home(Object key) {
+		return HashUtils.mix(key.hashCode()) & this.index.length - 1;
+	}
+
+	// Returns the index slot of key, or -1.
+	private int slotOf(Object key) {
+		int mask = this.index.length - 1;
+		int idx = home(key);
+		int e;
+		while ((e = this.index[idx]) != EMPTY) {
+			if (this.keys[e].equals(key)) {
+				return idx;
+			}
+			idx = idx + 1 & mask;
+		}
+		return -1;
+	}
+
+	private int freeSlot(K key) {
+		int mask = this.index.length - 1;
+		int idx = home(key);
+		while (this.index[idx] != EMPTY) {
+			idx = idx + 1 & mask;
+		}
+		return idx;
+	}
+
+	// Frees the entry in index slot idx, empties the slot and moves every
+	// following slot of the cluster that would otherwise become unreachable
+	// into the gap (Knuth's Algorithm R).
+	private void delete(int idx) {
+		int e = this.index[idx];
+		this.keys[e] = null;
+		this.values[e] = null;
+		this.referenced[e] = false;
+		this.free[this.freeCount++] = e;
+		int mask = this.index.length - 1;
+		int gap = idx;
+		int next = gap + 1 & mask;
+		while (this.index[next] != EMPTY) {
+			int home = home(this.keys[this.index[next]]);
+			// The slot can move to gap unless its home lies cyclically in
+			// (gap, next].
+			if ((next - home & mask) >= (next - gap & mask)) {
+				this.index[gap] = this.index[next];
+				gap = next;
+			}
+			next = next + 1 & mask;
+		}
+		this.index[gap] = EMPTY;
+		this.size--;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
@@ -0,0 +1,141 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class ClockCacheTest extends HashTableTest {
+	// Room for every key of the HashTableTest cases, so nothing is evicted.
+	private static final int MAX_ENTRIES = 1 << 17;
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return new HashTableFactory() {
+			@Override
+			public <K, V> HashTable<K, V> newInstance() {
+				return new ClockCache<>(MAX_ENTRIES);
+			}
+		};
+	}
+
+	@Test
+	/*
+	 * The cache never holds more than maxEntries entries, and the ones it holds
+	 * are still found with their latest values.
+	 */
+	void testEviction() {
+		ClockCache<Integer, Integer> h = new ClockCache<>(100);
+		for (int k = 0; k < 10000; k++) {
+			h.put(k, -k);
+			assertTrue(h.size() <= 100);
+		}
+		assertEquals(100, h.size());
+		int found = 0;
+		for (int k = 0; k < 10000; k++) {
+			Integer v = h.get(k);
+			if (v != null) {
+				assertEquals(-k, v);
+				found++;
+			}
+		}
+		assertEquals(100, found);
+	}
+
+	@Test
+	/*
+	 * Keys that are read between every two puts have their reference bits set
+	 * whenever the hand comes by, so a stream of keys used only once must not
+	 * push them out.
+	 */
+	void testHotKeysSurvive() {
+		ClockCache<Integer, Integer> h = new ClockCache<>(64);
+		for (int k = 0; k < 8; k++) {
+			h.put(k, k);
+		}
+		for (int k = 1000; k < 100000; k++) {
+			for (int hot = 0; hot < 8; hot++) {
+				assertEquals(hot, h.get(hot));
+			}
+			h.put(k, k);
+		}
+	}
+
+	@Test
+	/*
+	 * Entries expire after the default ttl or their own one, and an expired
+	 * entry is a miss that no longer counts in size().
+	 */
+	void testExpiry() {
+		long[] now = { 0 };
+		ClockCache<Integer, Integer> h = new ClockCache<>(16, 100, () -> now[0]);
+		h.put(1, 1);
+		h.put(2, 2, 1000, TimeUnit.NANOSECONDS);
+		now[0] = 99;
+		assertEquals(1, h.get(1));
+		now[0] = 100;
+		assertNull(h.get(1));
+		assertEquals(1, h.size());
+		assertEquals(2, h.get(2));
+		now[0] = 1000;
+		assertNull(h.get(2));
+		assertEquals(0, h.size());
+
+		// Putting a key again restarts its ttl.
+		h.put(3, 3);
+		now[0] = 1050;
+		h.put(3, 4);
+		now[0] = 1120;
+		assertEquals(4, h.get(3));
+	}
+
+	@Test
+	/*
+	 * An expired entry is evicted even though it was used, before every live
+	 * entry that was used as well.
+	 */
+	void testExpiredEvictedFirst() {
+		long[] now = { 0 };
+		ClockCache<Integer, Integer> h = new ClockCache<>(5, Long.MAX_VALUE, () -> now[0]);
+		for (int k = 0; k < 4; k++) {
+			h.put(k, k);
+		}
+		h.put(4, 4, 10, TimeUnit.NANOSECONDS);
+		for (int k = 0; k < 5; k++) {
+			h.get(k);
+		}
+		now[0] = 10;
+		h.put(5, 5);
+		for (int k = 0; k < 4; k++) {
+			assertEquals(k, h.get(k));
+		}
+		assertEquals(5, h.get(5));
+	}
+
+	@Test
+	/*
+	 * Removing keys shifts the rest of their clusters back; every other key
+	 * must still be found.
+	 */
+	void testRemove() {
+		ClockCache<Integer, Integer> h = new ClockCache<>(1000);
+		for (int k = 0; k < 1000; k++) {
+			h.put(k, k);
+		}
+		for (int k = 0; k < 1000; k += 3) {
+			assertEquals(k, h.remove(k));
+		}
+		assertNull(h.remove(0));
+		for (int k = 0; k < 1000; k++) {
+			if (k % 3 == 0) {
+				assertNull(h.get(k));
+			} else {
+				assertEquals(k, h.get(k));
+			}
+		}
+		assertEquals(666, h.size());
+	}
+}
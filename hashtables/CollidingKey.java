@@ -0,0 +1,31 @@
+package hashtables;
+
+/*
+ * Test key whose hash code keeps only the bits of its value selected by mask,
+ * so that many keys share very few distinct hash codes. It is ordered by value,
+ * which lets the tables that turn long chains into trees sort it.
+ */
+final class CollidingKey implements Comparable<CollidingKey> {
+	private final int v;
+	private final int mask;
+
+	CollidingKey(int v, int mask) {
+		this.v = v;
+		this.mask = mask;
+	}
+
+	@Override
+	public int hashCode() {
+		return this.v & this.mask;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof CollidingKey && ((CollidingKey) obj).v == this.v;
+	}
+
+	@Override
+	public int compareTo(CollidingKey o) {
+		return Integer.compare(this.v, o.v);
+	}
+}
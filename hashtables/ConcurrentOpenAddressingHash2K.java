@@ -0,0 +1,199 @@
+package hashtables;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/*
+ * A thread-safe HashTable: OpenAddressingFlatHash2K split into 2^k segments
+ * (lock striping). The top bits of the mixed hash select the segment and the
+ * low bits the slot within it, so every probe sequence stays inside one
+ * segment and writers to different segments never contend. Each segment grows
+ * on its own.
+ *
+ * Writers lock their segment. Readers take no lock at all: a new key is
+ * published with a release store after its value has been written, and a
+ * grown segment is published through a volatile field after it has been
+ * filled, so a reader that sees a key also sees its value. A reader racing
+ * with a resize simply finishes its probe in the old array, which is never
+ * modified again.
+ *
+ * size() adds up the segment sizes without locking, so under concurrent puts
+ * it is only a snapshot.
+ */
+public class ConcurrentOpenAddressingHash2K<K, V> implements HashTable<K, V> {
+	private static final int DEFAULT_SEGMENT_BITS = 6;
+	private static final int INITIAL_CAPACITY = 4; // Per segment. Must be a power of two.
+	private static final double MAX_LOAD_FACTOR = 0.75;
+	private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+	private static final class Segment {
+		// Keys and values interleaved as in OpenAddressingFlatHash2K. Only
+		// replaced while holding the segment's lock.
+		volatile Object[] slots;
+		// Only written while holding the segment's lock.
+		volatile int size;
+
+		Segment(int capacity) {
+			this.slots = new Object[capacity * 2];
+		}
+	}
+
+	private final Segment[] segments;
+	private final int segmentShift;
+
+	public ConcurrentOpenAddressingHash2K() {
+		this(0, DEFAULT_SEGMENT_BITS);
+	}
+
+	/*
+	 * Creates a table with 2^segmentBits independently locked segments. More
+	 * segments mean less contention between writers but more memory for a
+	 * nearly empty table.
+	 */
+	public ConcurrentOpenAddressingHash2K(int segmentBits) {
+		this(0, segmentBits);
+	}
+
+	/*
+	 * Creates a table with the default number of segments that holds
+	 * expectedSize entries without growing, as long as they spread evenly over
+	 * the segments. A factory method, as the constructor taking an int takes
+	 * segmentBits.
+	 */
+	public static <K, V> ConcurrentOpenAddressingHash2K<K, V> withExpectedSize(int expectedSize) {
+		return new ConcurrentOpenAddressingHash2K<>(expectedSize, DEFAULT_SEGMENT_BITS);
+	}
+
+	private ConcurrentOpenAddressingHash2K(int expectedSize, int segmentBits) {
+		if (segmentBits < 0 || segmentBits > 16) {
+			throw new IllegalArgumentException("segmentBits must be on [0, 16]: " + segmentBits);
+		}
+		this.segments = new Segment[1 << segmentBits];
+		int capacity = HashUtils.powerOfTwoCapacity(perSegment(expectedSize), MAX_LOAD_FACTOR, INITIAL_CAPACITY);
+		for (int i = 0; i < this.segments.length; i++) {
+			this.segments[i] = new Segment(capacity);
+		}
+		// A shift by 32 is a shift by 0 in Java, so a single segment needs the
+		// long shift in segmentFor().
+		this.segmentShift = Integer.SIZE - segmentBits;
+	}
+
+	// Entries per segment if expectedSize entries spread evenly.
+	private int perSegment(int expectedSize) {
+		return (expectedSize + this.segments.length - 1) / this.segments.length;
+	}
+
+	// For tests.
+	int segments() {
+		return this.segments.length;
+	}
+
+	private Segment segmentFor(int hash) {
+		return this.segments[(int) ((hash & 0xFFFFFFFFL) >>> this.segmentShift)];
+	}
+
+	@Override
+	public void put(K key, V value) {
+		int hash = HashUtils.mix(key.hashCode());
+		Segment segment = segmentFor(hash);
+		synchronized (segment) {
+			Object[] slots = segment.slots;
+			int mask = (slots.length >> 1) - 1;
+			int i = hash & mask;
+			Object k;
+			while ((k = slots[i << 1]) != null) {
+				if (k.equals(key)) {
+					SLOT.setRelease(slots, (i << 1) + 1, value);
+					return;
+				}
+				i = i + 1 & mask;
+			}
+			int size = segment.size + 1;
+			if ((slots.length >> 1) * MAX_LOAD_FACTOR < size) {
+				// Grow before inserting: a reader may still be probing the old
+				// array, and a probe for a missing key only ends at a free slot.
+				// Twice the capacity, as slots holds two elements per entry.
+				rehash(segment, slots.length);
+				slots = segment.slots;
+				mask = (slots.length >> 1) - 1;
+				i = hash & mask;
+				while (slots[i << 1] != null) {
+					i = i + 1 & mask;
+				}
+			}
+			// No reader can see the value before the key is published.
+			slots[(i << 1) + 1] = value;
+			SLOT.setRelease(slots, i << 1, key);
+			segment.size = size;
+		}
+	}
+
+	// Moves the entries of segment into a new array of the given capacity,
+	// without comparing keys. Must hold the segment's lock.
+	private static void rehash(Segment segment, int capacity) {
+		Object[] slots = segment.slots;
+		Object[] newSlots = new Object[capacity * 2];
+		int mask = capacity - 1;
+		for (int j = 0; j < slots.length; j += 2) {
+			Object k = slots[j];
+			if (k != null) {
+				int i = HashUtils.mix(k.hashCode()) & mask;
+				while (newSlots[i << 1] != null) {
+					i = i + 1 & mask;
+				}
+				newSlots[i << 1] = k;
+				newSlots[(i << 1) + 1] = slots[j + 1];
+			}
+		}
+		// The volatile write publishes the filled array.
+		segment.slots = newSlots;
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		int perSegment = perSegment(expectedSize);
+		for (Segment segment : this.segments) {
+			synchronized (segment) {
+				HashUtils.ensurePowerOfTwoCapacity(perSegment, MAX_LOAD_FACTOR, INITIAL_CAPACITY,
+						segment.slots.length >> 1, capacity -> rehash(segment, capacity));
+			}
+		}
+	}
+
+	@Override
+	public void trimToSize() {
+		for (Segment segment : this.segments) {
+			synchronized (segment) {
+				HashUtils.trimPowerOfTwoCapacity(segment.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY,
+						segment.slots.length >> 1, capacity -> rehash(segment, capacity));
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(K key) {
+		int hash = HashUtils.mix(key.hashCode());
+		Object[] slots = segmentFor(hash).slots;
+		int mask = (slots.length >> 1) - 1;
+		int i = hash & mask;
+		Object k;
+		while ((k = SLOT.getAcquire(slots, i << 1)) != null) {
+			if (k.equals(key)) {
+				return (V) SLOT.getAcquire(slots, (i << 1) + 1);
+			}
+			i = i + 1 & mask;
+		}
+		return null;
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (Segment s : this.segments) {
+			size += s.size;
+		}
+		return size;
+	}
+
+}
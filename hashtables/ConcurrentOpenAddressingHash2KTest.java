@@ -0,0 +1,95 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentOpenAddressingHash2KTest extends HashTableTest {
+	private static final int THREADS = 4;
+	private static final int KEYS_PER_THREAD = 50000;
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return ConcurrentOpenAddressingHash2K::new;
+	}
+
+	@Test
+	/*
+	 * A single segment must behave like any other table.
+	 */
+	void testSingleSegment() {
+		ConcurrentOpenAddressingHash2K<Integer, Integer> h = new ConcurrentOpenAddressingHash2K<>(0);
+		for (int i = 0; i < 10000; i++) {
+			h.put(i, -i);
+		}
+		assertEquals(10000, h.size());
+		for (int i = 0; i < 10000; i++) {
+			assertEquals(Integer.valueOf(-i), h.get(i));
+		}
+		assertNull(h.get(10000));
+	}
+
+	@Test
+	/*
+	 * The constructor taking an int sets the number of segments; a presized
+	 * table keeps the default number.
+	 */
+	void testSegmentBitsAndExpectedSize() {
+		assertEquals(16, new ConcurrentOpenAddressingHash2K<Integer, Integer>(4).segments());
+		ConcurrentOpenAddressingHash2K<Integer, Integer> h = ConcurrentOpenAddressingHash2K.withExpectedSize(4);
+		assertEquals(new ConcurrentOpenAddressingHash2K<Integer, Integer>().segments(), h.segments());
+	}
+
+	@Test
+	/*
+	 * Several writers put disjoint key ranges while a reader keeps looking the
+	 * keys up. The reader may miss keys that are not put yet, but must never
+	 * see a key with another value than the one it was put with. Afterwards
+	 * every key must be there.
+	 */
+	void testConcurrentPuts() throws InterruptedException {
+		ConcurrentOpenAddressingHash2K<Integer, Integer> h = new ConcurrentOpenAddressingHash2K<>();
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicBoolean wrongValue = new AtomicBoolean();
+		List<Thread> writers = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int first = t * KEYS_PER_THREAD;
+			writers.add(new Thread(() -> {
+				for (int k = first; k < first + KEYS_PER_THREAD; k++) {
+					h.put(k, -k);
+				}
+			}));
+		}
+		Thread reader = new Thread(() -> {
+			while (!done.get()) {
+				for (int k = 0; k < THREADS * KEYS_PER_THREAD; k += 7) {
+					Integer v = h.get(k);
+					if (v != null && v != -k) {
+						wrongValue.set(true);
+					}
+				}
+			}
+		});
+		reader.start();
+		for (Thread w : writers) {
+			w.start();
+		}
+		for (Thread w : writers) {
+			w.join();
+		}
+		done.set(true);
+		reader.join();
+
+		assertFalse(wrongValue.get());
+		assertEquals(THREADS * KEYS_PER_THREAD, h.size());
+		for (int k = 0; k < THREADS * KEYS_PER_THREAD; k++) {
+			assertEquals(Integer.valueOf(-k), h.get(k));
+		}
+	}
+}
@@ -0,0 +1,258 @@
+package hashtables;
+
+import java.util.Arrays;
+
+/*
+ * Bucketized cuckoo hashing: every key lives in one of two buckets of four
+ * slots, chosen by two hash functions (the mixed hash code, and that mixed
+ * once more). get() looks into at most those two buckets, so a lookup costs
+ * at most eight hash comparisons however full or unlucky the table is.
+ *
+ * The mixed hash of every key is stored in a parallel int array, where 0
+ * marks an empty slot (a key whose hash mixes to 0 is stored as 1). A bucket
+ * is 16 bytes of that array and never straddles a cache line, so a miss reads
+ * two cache lines of it and nothing else; a hit also reads the key and value
+ * of the matching slot.
+ *
+ * put() places a new key into a free slot of either bucket. If both are full,
+ * it evicts a random entry of the second bucket into that entry's other
+ * bucket, and so on, for at most MAX_KICKS moves. An entry still homeless
+ * after that goes into a small stash, which get() only scans when it is not
+ * empty. When the stash is full the table doubles, unless it is less than half
+ * full: then the failure comes from keys whose hash codes collide, more room
+ * would not help, and the stash grows instead.
+ */
+public class CuckooHash2K<K, V> implements HashTable<K, V> {
+	private static final int BUCKET_SIZE = 4; // Must be a power of two.
+	private static final int INITIAL_CAPACITY = 8; // In slots. Must be a power of two.
+	private static final double MAX_LOAD_FACTOR = 0.9;
+	private static final int MAX_KICKS = 128;
+	private static final int STASH_SIZE = 4;
+
+	private int[] hashes;
+	private Object[] keys;
+	private Object[] values;
+	// Number of buckets - 1.
+	private int bucketMask;
+	private int[] stashHashes;
+	private Object[] stashKeys;
+	private Object[] stashValues;
+	private int stashSize;
+	private int size;
+	// State of the xorshift generator that picks the entries to evict.
+	private int random = 0x9E3779B9;
+
+	public CuckooHash2K() {
+		this(0);
+	}
+
+	public CuckooHash2K(int expectedSize) {
+		allocate(HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY));
+		this.size = 0;
+	}
+
+	private void allocate(int capacity) {
+		this.hashes = new int[capacity];
+		this.keys = new Object[capacity];
+		this.values = new Object[capacity];
+		this.bucketMask = capacity / BUCKET_SIZE - 1;
+		this.stashHashes = new int[STASH_SIZE];
+		this.stashKeys = new Object[STASH_SIZE];
+		this.stashValues = new Object[STASH_SIZE];
+		this.stashSize = 0;
+	}
+
+	private static int hash(Object key) {
+		int h = HashUtils.mix(key.hashCode());
+		return h == 0 ? 1 : h;
+	}
+
+	// First slot of the first bucket of hash.
+	private int bucket1(int hash) {
+		return (hash & this.bucketMask) * BUCKET_SIZE;
+	}
+
+	// First slot of the second bucket of hash.
+	private int bucket2(int hash) {
+		return (HashUtils.mix(hash) & this.bucketMask) * BUCKET_SIZE;
+	}
+
+	// Returns the slot of key in the bucket starting at slot b, or -1.
+	private int find(int b, int hash, Object key) {
+		for (int i = b; i < b + BUCKET_SIZE; i++) {
+			if (this.hashes[i] == hash && this.keys[i].equals(key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private int indexOf(Object key, int hash) {
+		int idx = find(bucket1(hash), hash, key);
+		return idx >= 0 ? idx : find(bucket2(hash), hash, key);
+	}
+
+	private int stashIndexOf(Object key, int hash) {
+		for (int i = 0; i < this.stashSize; i++) {
+			if (this.stashHashes[i] == hash && this.stashKeys[i].equals(key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(K key) {
+		int hash = hash(key);
+		int idx = indexOf(key, hash);
+		if (idx >= 0) {
+			return (V) this.values[idx];
+		}
+		if (this.stashSize > 0) {
+			idx = stashIndexOf(key, hash);
+			if (idx >= 0) {
+				return (V) this.stashValues[idx];
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void put(K key, V value) {
+		int hash = hash(key);
+		int idx = indexOf(key, hash);
+		if (idx >= 0) {
+			this.values[idx] = value;
+			return;
+		}
+		if (this.stashSize > 0) {
+			idx = stashIndexOf(key, hash);
+			if (idx >= 0) {
+				this.stashValues[idx] = value;
+				return;
+			}
+		}
+		insert(key, value, hash);
+		this.size++;
+		if (this.hashes.length * MAX_LOAD_FACTOR < this.size) {
+			rehash(this.hashes.length * 2);
+		}
+	}
+
+	// Puts the entry into a free slot of the bucket starting at slot b, if it
+	// has one.
+	private boolean place(int b, Object key, Object value, int hash) {
+		for (int i = b; i < b + BUCKET_SIZE; i++) {
+			if (this.hashes[i] == 0) {
+				this.hashes[i] = hash;
+				this.keys[i] = key;
+				this.values[i] = value;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Inserts a key known not to be in the table. Does not touch size.
+	private void insert(Object key, Object value, int hash) {
+		int b = bucket1(hash);
+		if (place(b, key, value, hash)) {
+			return;
+		}
+		b = bucket2(hash);
+		if (place(b, key, value, hash)) {
+			return;
+		}
+		Object k = key;
+		Object v = value;
+		int h = hash;
+		for (int kick = 0; kick < MAX_KICKS; kick++) {
+			// Evict a random entry of bucket b and move it to its other bucket.
+			int victim = b + (nextRandom() & BUCKET_SIZE - 1);
+			Object tk = this.keys[victim];
+			Object tv = this.values[victim];
+			int th = this.hashes[victim];
+			this.keys[victim] = k;
+			this.values[victim] = v;
+			this.hashes[victim] = h;
+			k = tk;
+			v = tv;
+			h = th;
+			int b1 = bucket1(h);
+			b = b1 == b ? bucket2(h) : b1;
+			if (place(b, k, v, h)) {
+				return;
+			}
+		}
+		stash(k, v, h);
+	}
+
+	private void stash(Object key, Object value, int hash) {
+		if (this.stashSize == this.stashKeys.length) {
+			if (this.size * 2 > this.hashes.length) {
+				rehash(this.hashes.length * 2);
+				insert(key, value, hash);
+				return;
+			}
+			int length = this.stashKeys.length * 2;
+			this.stashHashes = Arrays.copyOf(this.stashHashes, length);
+			this.stashKeys = Arrays.copyOf(this.stashKeys, length);
+			this.stashValues = Arrays.copyOf(this.stashValues, length);
+		}
+		this.stashHashes[this.stashSize] = hash;
+		this.stashKeys[this.stashSize] = key;
+		this.stashValues[this.stashSize] = value;
+		this.stashSize++;
+	}
+
+	private int nextRandom() {
+		int x = this.random;
+		x ^= x << 13;
+		x ^= x >>> 17;
+		x ^= x << 5;
+		this.random = x;
+		return x;
+	}
+
+	// Moves every entry, stash included, into new arrays of the given capacity
+	// with insert(), which compares no keys and reuses the stored hashes. An
+	// insert() that overflows the new stash may rehash again; that is fine, as
+	// the old arrays are only read through the local copies.
+	private void rehash(int capacity) {
+		int[] oldHashes = this.hashes;
+		Object[] oldKeys = this.keys;
+		Object[] oldValues = this.values;
+		int[] oldStashHashes = this.stashHashes;
+		Object[] oldStashKeys = this.stashKeys;
+		Object[] oldStashValues = this.stashValues;
+		int oldStashSize = this.stashSize;
+		allocate(capacity);
+		for (int i = 0; i < oldHashes.length; i++) {
+			if (oldHashes[i] != 0) {
+				insert(oldKeys[i], oldValues[i], oldHashes[i]);
+			}
+		}
+		for (int i = 0; i < oldStashSize; i++) {
+			insert(oldStashKeys[i], oldStashValues[i], oldStashHashes[i]);
+		}
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		HashUtils.ensurePowerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.hashes.length,
+				this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		HashUtils.trimPowerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.hashes.length,
+				this::rehash);
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
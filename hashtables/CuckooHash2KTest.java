@@ -0,0 +1,35 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class CuckooHash2KTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return CuckooHash2K::new;
+	}
+
+	@Test
+	/*
+	 * Keys with only four distinct hash codes share at most eight buckets. The
+	 * rest must go to the stash instead of growing the table without end, and
+	 * must still be found and updated there.
+	 */
+	void testCollidingKeys() {
+		CuckooHash2K<CollidingKey, Integer> h = new CuckooHash2K<>();
+		for (int i = 0; i < 1000; i++) {
+			h.put(new CollidingKey(i, 3), i);
+		}
+		for (int i = 0; i < 1000; i += 2) {
+			h.put(new CollidingKey(i, 3), -i);
+		}
+		assertEquals(1000, h.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i % 2 == 0 ? -i : i, h.get(new CollidingKey(i, 3)));
+		}
+		assertNull(h.get(new CollidingKey(1000, 3)));
+	}
+}
@@ -0,0 +1,48 @@
+package hashtables;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/*
+ * Frees direct and mapped ByteBuffers right away instead of whenever the
+ * garbage collector gets to them, through sun.misc.Unsafe.invokeCleaner(). On
+ * a JVM without it free() does nothing and the memory goes with the buffer.
+ *
+ * A freed buffer must never be touched again: the memory behind it is gone
+ * and the JVM crashes rather than throwing. The callers null out their
+ * references first and check for that on every access.
+ */
+enum DirectBuffers {
+	;
+
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> c = Class.forName("sun.misc.Unsafe");
+			Field f = c.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			unsafe = f.get(null);
+			invokeCleaner = c.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			unsafe = null;
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	static void free(ByteBuffer buffer) {
+		if (INVOKE_CLEANER != null) {
+			try {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} catch (ReflectiveOperationException e) {
+				// Leave it to the garbage collector.
+			}
+		}
+	}
+}
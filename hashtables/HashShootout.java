@@ -1,25 +1,129 @@
 package hashtables;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.SplittableRandom;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
 
 public class HashShootout {
 	private static final int TEST_RUNS = 10;
+	// Share of puts in the multi-threaded MixedSS scenario; the rest are gets.
+	private static final int MIXED_PUT_PERCENT = 10;
+	private static final int MIXED_KEY_LENGTH = 8;
 	private SplittableRandom rng;
 	private final HashTableFactory factory;
+	// Creates the same implementation presized for a given number of entries.
+	private final SizedHashTableFactory sizedFactory;
+	// Whether the implementation copes with BadHashObject keys (PutBI) in
+	// reasonable time.
+	private final boolean floodResistant;
+	// Appended to the class name in the results, to tell apart instances of one
+	// class that are configured differently, or null.
+	private final String variant;
+	// Whether the implementation only takes String keys, and so only runs the
+	// scenarios with String keys.
+	private final boolean stringKeysOnly;
+	// Where the run*-methods record per-operation latencies, or null if they
+	// should not.
+	private LatencyHistogram latencies;
 
 	private HashShootout(HashTableFactory factory) {
+		this(factory, null, false);
+	}
+
+	private HashShootout(HashTableFactory factory, SizedHashTableFactory sizedFactory) {
+		this(factory, sizedFactory, false);
+	}
+
+	private HashShootout(HashTableFactory factory, SizedHashTableFactory sizedFactory, boolean floodResistant) {
+		this(factory, sizedFactory, floodResistant, null);
+	}
+
+	private HashShootout(HashTableFactory factory, SizedHashTableFactory sizedFactory, boolean floodResistant,
+			String variant) {
+		this(factory, sizedFactory, floodResistant, variant, false);
+	}
+
+	private HashShootout(HashTableFactory factory, SizedHashTableFactory sizedFactory, boolean floodResistant,
+			String variant, boolean stringKeysOnly) {
 		this.factory = factory;
+		this.sizedFactory = sizedFactory;
+		this.floodResistant = floodResistant;
+		this.variant = variant;
+		this.stringKeysOnly = stringKeysOnly;
 		resetRNG();
 	}
 
-	private static class BadHashObject {
+	// Linear probing is the default and keeps the plain class name.
+	private static String probeVariant(ProbeStrategy probeStrategy) {
+		return probeStrategy == ProbeStrategy.LINEAR ? null
+				: probeStrategy.name().toLowerCase(Locale.ROOT).replace('_', '-');
+	}
+
+	private static HashShootout openAddressingHash2K(ProbeStrategy probeStrategy) {
+		return new HashShootout(new HashTableFactory() {
+			@Override
+			public <K, V> HashTable<K, V> newInstance() {
+				return new OpenAddressingHash2K<>(probeStrategy);
+			}
+		}, new SizedHashTableFactory() {
+			@Override
+			public <K, V> HashTable<K, V> newInstance(int expectedSize) {
+				return new OpenAddressingHash2K<>(expectedSize, ResizeMode.ALL_AT_ONCE, probeStrategy);
+			}
+		}, false, probeVariant(probeStrategy));
+	}
+
+	private static HashShootout openAddressingHashPrime(ProbeStrategy probeStrategy) {
+		return new HashShootout(new HashTableFactory() {
+			@Override
+			public <K, V> HashTable<K, V> newInstance() {
+				return new OpenAddressingHashPrime<>(probeStrategy);
+			}
+		}, new SizedHashTableFactory() {
+			@Override
+			public <K, V> HashTable<K, V> newInstance(int expectedSize) {
+				return new OpenAddressingHashPrime<>(expectedSize, probeStrategy);
+			}
+		}, false, probeVariant(probeStrategy));
+	}
+
+	private static HashShootout stringArenaHash2K() {
+		return new HashShootout(new HashTableFactory() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public <K, V> HashTable<K, V> newInstance() {
+				return (HashTable<K, V>) new StringArenaHash2K<V>();
+			}
+		}, new SizedHashTableFactory() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public <K, V> HashTable<K, V> newInstance(int expectedSize) {
+				return (HashTable<K, V>) new StringArenaHash2K<V>(expectedSize);
+			}
+		}, false, null, true);
+	}
+
+	// Comparable, like most keys that come from user input (String, Integer,
+	// ...), which lets tables that convert colliding chains into trees order
+	// keys with equal hash codes.
+	static class BadHashObject implements Comparable<BadHashObject> {
 		private final long v;
 
 		public BadHashObject(long v) {
@@ -52,6 +156,11 @@ public class HashShootout {
 			BadHashObject other = (BadHashObject) obj;
 			return this.v == other.v;
 		}
+
+		@Override
+		public int compareTo(BadHashObject o) {
+			return Long.compare(this.v, o.v);
+		}
 	}
 
 	private void resetRNG() {
@@ -70,7 +179,50 @@ public class HashShootout {
 		resetRNG();
 		HashTable<Integer, Integer> h = this.factory.newInstance();
 		for (int i = 0; i < tests; i++) {
-			h.put(this.rng.nextInt(), this.rng.nextInt());
+			int k = this.rng.nextInt();
+			int v = this.rng.nextInt();
+			long start = startOp();
+			h.put(k, v);
+			endOp(start);
+		}
+		return h.size();
+	}
+
+	private int runPutTestIntIntPrimitive(int tests) {
+		resetRNG();
+		IntIntOpenAddressingHash2K h = new IntIntOpenAddressingHash2K();
+		for (int i = 0; i < tests; i++) {
+			int k = this.rng.nextInt();
+			int v = this.rng.nextInt();
+			long start = startOp();
+			h.put(k, v);
+			endOp(start);
+		}
+		return h.size();
+	}
+
+	private int runPutTestLongLong(int tests) {
+		resetRNG();
+		HashTable<Long, Long> h = this.factory.newInstance();
+		for (int i = 0; i < tests; i++) {
+			long k = this.rng.nextLong();
+			long v = this.rng.nextLong();
+			long start = startOp();
+			h.put(k, v);
+			endOp(start);
+		}
+		return h.size();
+	}
+
+	private int runPutTestLongLongPrimitive(int tests) {
+		resetRNG();
+		LongLongOpenAddressingHash2K h = new LongLongOpenAddressingHash2K();
+		for (int i = 0; i < tests; i++) {
+			long k = this.rng.nextLong();
+			long v = this.rng.nextLong();
+			long start = startOp();
+			h.put(k, v);
+			endOp(start);
 		}
 		return h.size();
 	}
@@ -79,7 +231,11 @@ public class HashShootout {
 		resetRNG();
 		HashTable<BadHashObject, Integer> h = this.factory.newInstance();
 		for (int i = 0; i < tests; i++) {
-			h.put(new BadHashObject(this.rng.nextInt()), this.rng.nextInt());
+			BadHashObject k = new BadHashObject(this.rng.nextInt());
+			int v = this.rng.nextInt();
+			long start = startOp();
+			h.put(k, v);
+			endOp(start);
 		}
 		return h.size();
 	}
@@ -88,7 +244,10 @@ public class HashShootout {
 		resetRNG();
 		HashTable<String, Integer> h = this.factory.newInstance();
 		for (String k : keys) {
-			h.put(k, this.rng.nextInt());
+			int v = this.rng.nextInt();
+			long start = startOp();
+			h.put(k, v);
+			endOp(start);
 		}
 		return h.size();
 	}
@@ -98,21 +257,37 @@ public class HashShootout {
 		return h.size();
 	}
 
+	// Same as runPutTestStringString, but into a table presized for all keys.
+	private int runPutTestStringStringPresized(List<String> keys, List<String> values) {
+		HashTable<String, String> h = fillStringString(this.sizedFactory.newInstance(keys.size()), keys, values);
+		return h.size();
+	}
+
 	private HashTable<String, String> buildStringString(List<String> keys, List<String> values) {
+		return fillStringString(this.factory.newInstance(), keys, values);
+	}
+
+	private HashTable<String, String> fillStringString(HashTable<String, String> h, List<String> keys,
+			List<String> values) {
 		resetRNG();
-		HashTable<String, String> h = this.factory.newInstance();
 		Iterator<String> keyIt = keys.iterator();
 		Iterator<String> valueIt = values.iterator();
 		while (keyIt.hasNext()) {
-			h.put(keyIt.next(), valueIt.next());
+			String k = keyIt.next();
+			String v = valueIt.next();
+			long start = startOp();
+			h.put(k, v);
+			endOp(start);
 		}
 		return h;
 	}
 
-	private static int runGetTestStringString(HashTable<String, String> ht, List<String> values) {
+	private int runGetTestStringString(HashTable<String, String> ht, List<String> values) {
 		int hits = 0;
 		for (String k : values) {
+			long start = startOp();
 			hits += ht.get(k) != null ? 1 : 0;
+			endOp(start);
 		}
 		return hits;
 	}
@@ -121,11 +296,76 @@ public class HashShootout {
 		resetRNG();
 		HashTable<Integer, String> h = this.factory.newInstance();
 		for (String v : values) {
-			h.put(this.rng.nextInt(), v);
+			int k = this.rng.nextInt();
+			long start = startOp();
+			h.put(k, v);
+			endOp(start);
 		}
 		return h.size();
 	}
 
+	// Runs threads threads that each do opsPerThread random gets and puts of
+	// keys against one shared table holding half of the keys, and returns the
+	// time from starting them until the last one has finished.
+	private long runMixedTestStringString(List<String> keys, int threads, int opsPerThread) {
+		resetRNG();
+		HashTable<String, String> h = this.factory.newInstance();
+		for (int i = 0; i < keys.size() / 2; i++) {
+			h.put(keys.get(i), keys.get(i));
+		}
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> workers = new ArrayList<>();
+		// Where the threads leave their hit counts when done, so the gets
+		// cannot be optimized away. Not updated in the loop, since the counters
+		// share a cache line.
+		int[] hits = new int[threads];
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			SplittableRandom rng = this.rng.split();
+			workers.add(new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				int found = 0;
+				for (int i = 0; i < opsPerThread; i++) {
+					String k = keys.get(rng.nextInt(keys.size()));
+					if (rng.nextInt(100) < MIXED_PUT_PERCENT) {
+						h.put(k, k);
+					} else {
+						found += h.get(k) != null ? 1 : 0;
+					}
+				}
+				hits[thread] = found;
+			}));
+		}
+		for (Thread w : workers) {
+			w.start();
+		}
+		long now = System.nanoTime();
+		start.countDown();
+		for (Thread w : workers) {
+			try {
+				w.join();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return System.nanoTime() - now;
+	}
+
+	private long startOp() {
+		return this.latencies != null ? System.nanoTime() : 0;
+	}
+
+	private void endOp(long start) {
+		if (this.latencies != null) {
+			this.latencies.record(System.nanoTime() - start);
+		}
+	}
+
 	private List<String> getRandomStrings(int size, int length) {
 		List<String> strings = new ArrayList<>();
 		for (int i = 0; i < size; i++) {
@@ -142,13 +382,45 @@ public class HashShootout {
 		lists.add(l);
 	}
 
-	private static class HashMapAdapter<K, V> implements HashTable<K, V> {
+	static class HashMapAdapter<K, V> implements HashTable<K, V> {
 		private final HashMap<K, V> map;
 
 		public HashMapAdapter() {
 			this.map = new HashMap<>();
 		}
 
+		public HashMapAdapter(int expectedSize) {
+			// HashMap takes a capacity, not a size, and its load factor is 0.75.
+			this.map = new HashMap<>((int) (expectedSize / 0.75) + 1);
+		}
+
+		@Override
+		public void put(K key, V value) {
+			this.map.put(key, value);
+		}
+
+		@Override
+		public V get(K key) {
+			return this.map.get(key);
+		}
+
+		@Override
+		public int size() {
+			return this.map.size();
+		}
+	}
+
+	static class ConcurrentHashMapAdapter<K, V> implements HashTable<K, V> {
+		private final ConcurrentHashMap<K, V> map;
+
+		public ConcurrentHashMapAdapter() {
+			this.map = new ConcurrentHashMap<>();
+		}
+
+		public ConcurrentHashMapAdapter(int expectedSize) {
+			this.map = new ConcurrentHashMap<>(expectedSize);
+		}
+
 		@Override
 		public void put(K key, V value) {
 			this.map.put(key, value);
@@ -176,32 +448,84 @@ public class HashShootout {
 	}
 
 	public static void main(String[] args) {
-		List<HashTableFactory> factories = new ArrayList<>();
-		factories.add(SeparateChainingHash2K::new);
-		factories.add(SeparateChainingHashPrime::new);
-		factories.add(OpenAddressingHash2K::new);
-		factories.add(OpenAddressingHashPrime::new);
-		factories.add(HashMapAdapter::new);
 		List<HashShootout> hs = new ArrayList<>();
+		// Every probe strategy the two tables support.
+		hs.add(openAddressingHash2K(ProbeStrategy.LINEAR));
+		hs.add(openAddressingHash2K(ProbeStrategy.TRIANGULAR));
+		hs.add(openAddressingHash2K(ProbeStrategy.DOUBLE_HASHING));
+		hs.add(openAddressingHashPrime(ProbeStrategy.LINEAR));
+		hs.add(openAddressingHashPrime(ProbeStrategy.DOUBLE_HASHING));
+		hs.add(new HashShootout(OpenAddressingFlatHash2K::new, OpenAddressingFlatHash2K::new));
+		hs.add(new HashShootout(OpenAddressingFlatHashPrime::new, OpenAddressingFlatHashPrime::new));
+		hs.add(new HashShootout(RobinHoodHash2K::new, RobinHoodHash2K::new));
+		hs.add(new HashShootout(SwissHash2K::new, SwissHash2K::new));
+		hs.add(new HashShootout(CuckooHash2K::new, CuckooHash2K::new));
+		hs.add(new HashShootout(HopscotchHash2K::new, HopscotchHash2K::new));
+		hs.add(new HashShootout(SeparateChainingIntrusiveHash2K::new, SeparateChainingIntrusiveHash2K::new));
+		hs.add(new HashShootout(SeparateChainingIntrusiveHashPrime::new, SeparateChainingIntrusiveHashPrime::new));
+		hs.add(new HashShootout(ConcurrentOpenAddressingHash2K::new, ConcurrentOpenAddressingHash2K::withExpectedSize));
+		hs.add(new HashShootout(ReadMostlyHash2K::new, ReadMostlyHash2K::new));
+		hs.add(stringArenaHash2K());
+		// These convert long chains into trees and can run PutBI.
+		hs.add(new HashShootout(SeparateChainingHash2K::new, SeparateChainingHash2K::new, true));
+		hs.add(new HashShootout(SeparateChainingHashPrime::new, SeparateChainingHashPrime::new, true));
+		hs.add(new HashShootout(HashMapAdapter::new, HashMapAdapter::new, true));
+		hs.add(new HashShootout(ConcurrentHashMapAdapter::new, ConcurrentHashMapAdapter::new, true));
+		// The thread-safe implementations, for the multi-threaded MixedSS runs.
+		List<HashTableFactory> concurrentFactories = new ArrayList<>();
+		concurrentFactories.add(ConcurrentOpenAddressingHash2K::new);
+		concurrentFactories.add(ReadMostlyHash2K::new);
+		concurrentFactories.add(ConcurrentHashMapAdapter::new);
 		Map<String, Double> accumulatedTimes = new TreeMap<>();
+		Map<String, Double> accumulatedBytes = new TreeMap<>();
+		// Average probe lengths of the GetHitsSS tables that report them.
+		Map<String, Double> accumulatedProbes = new TreeMap<>();
+		// The stats() of the GetHitsSS/GetMissSS tables in the last run, if they
+		// were recorded (-Dhashtables.stats=true).
+		Map<String, HashTableStats> tableStats = new TreeMap<>();
 		int testRuns = TEST_RUNS;
 		int keys = 100000;
+		// Per-operation latencies, or null if only the averages are wanted.
+		// Timing every operation adds the cost of two System.nanoTime() calls to
+		// the averages.
+		Map<String, LatencyHistogram> latencies = null;
 
 		if (args.length >= 1) {
 			testRuns = Integer.parseInt(args[0]);
-			if (args.length == 2) {
+			if (args.length >= 2) {
 				keys = Integer.parseInt(args[1]);
 			}
+			if (args.length == 3 && args[2].equals("latencies")) {
+				latencies = new HashMap<>();
+			}
+			if (args.length >= 3 && args[2].equals("threads")) {
+				int maxThreads = Runtime.getRuntime().availableProcessors();
+				if (args.length == 4) {
+					maxThreads = Integer.parseInt(args[3]);
+				}
+				runConcurrent(concurrentFactories, testRuns, keys, maxThreads);
+				return;
+			}
+			if (args.length == 3 && args[2].equals("offheap")) {
+				runOffHeap(testRuns, keys);
+				return;
+			}
+			if (args.length == 3 && args[2].equals("snapshot")) {
+				runSnapshot(testRuns, keys);
+				return;
+			}
+			if (args.length >= 3 && args[2].equals("spill")) {
+				int cacheEntries = args.length == 4 ? Integer.parseInt(args[3]) : 1 << 16;
+				runSpill(testRuns, keys, cacheEntries);
+				return;
+			}
 		}
 		System.err.printf("Will do %d testruns with %d keys each.\n", testRuns, keys);
 		// Set to true if you have an urge to wait for a very very long time.
 		// Concrete example of the importance of not choosing a terrible
-		// hash function.
+		// hash function: runs PutBI on the tables that do not treeify too.
 		final boolean iAmReallyReallyPatient = false;
 
-		for (HashTableFactory f : factories) {
-			hs.add(new HashShootout(f));
-		}
 		HashShootout dummyShootout = new HashShootout(null);
 
 		for (int testIdx = 0; testIdx < testRuns; testIdx++) {
@@ -218,6 +542,11 @@ public class HashShootout {
 			Collections.shuffle(hs);
 
 			for (HashShootout s : hs) {
+				// The longest keys, so that (almost) all of them are distinct.
+				incrementBytes(accumulatedBytes, getTestId("MemSS", s), s, keyLists1.get(keyLists1.size() - 1),
+						valueLists.get(valueLists.size() - 1));
+				incrementBytesWithKeys(accumulatedBytes, getTestId("MemSSKeys", s), s,
+						keyLists1.get(keyLists1.size() - 1), valueLists.get(valueLists.size() - 1));
 				for (int j = 0; j < keyLists1.size(); j++) {
 					final List<String> keyList1 = keyLists1.get(j);
 					final List<String> keyList2 = keyLists2.get(j);
@@ -225,35 +554,510 @@ public class HashShootout {
 					final int testSize = keys;
 					int keyLength = keyList1.get(0).length();
 					System.gc();
-					incrementTime(accumulatedTimes, getTestId("PutII", s), timeCall(() -> s.runPutTestIntInt(testSize)),
-							keys);
-					incrementTime(accumulatedTimes, getTestId("PutSI" + String.format("%03d", keyLength), s),
-							timeCall(() -> s.runPutTestStringInt(keyList1)), keys);
-					incrementTime(accumulatedTimes, getTestId("PutSS" + String.format("%03d", keyLength), s),
-							timeCall(() -> s.runPutTestStringString(keyList1, valueList)), keys);
-					incrementTime(accumulatedTimes, getTestId("PutIS", s),
-							timeCall(() -> s.runPutTestIntString(valueList)), keys);
+					if (!s.stringKeysOnly) {
+						measure(accumulatedTimes, latencies, getTestId("PutII", s), s,
+								() -> s.runPutTestIntInt(testSize), keys);
+						measure(accumulatedTimes, latencies, getTestId("PutLL", s), s,
+								() -> s.runPutTestLongLong(testSize), keys);
+					}
+					measure(accumulatedTimes, latencies, getTestId("PutSI" + String.format("%03d", keyLength), s), s,
+							() -> s.runPutTestStringInt(keyList1), keys);
+					measure(accumulatedTimes, latencies, getTestId("PutSS" + String.format("%03d", keyLength), s), s,
+							() -> s.runPutTestStringString(keyList1, valueList), keys);
+					measure(accumulatedTimes, latencies,
+							getTestId("PutSSPresized" + String.format("%03d", keyLength), s), s,
+							() -> s.runPutTestStringStringPresized(keyList1, valueList), keys);
+					if (!s.stringKeysOnly) {
+						measure(accumulatedTimes, latencies, getTestId("PutIS", s), s,
+								() -> s.runPutTestIntString(valueList), keys);
+					}
 					HashTable<String, String> preinsertedKeys = s.buildStringString(keyList1, valueList);
-					incrementTime(accumulatedTimes, getTestId("GetHitsSS" + String.format("%03d", keyLength), s),
-							timeCall(() -> HashShootout.runGetTestStringString(preinsertedKeys, keyList1)), keys);
+					if (preinsertedKeys instanceof ProbeStatistics) {
+						accumulatedProbes.merge(getTestId("ProbesSS" + String.format("%03d", keyLength), s),
+								((ProbeStatistics) preinsertedKeys).averageProbeLength(), Double::sum);
+					}
+					measure(accumulatedTimes, latencies, getTestId("GetHitsSS" + String.format("%03d", keyLength), s),
+							s, () -> s.runGetTestStringString(preinsertedKeys, keyList1), keys);
 					if(keys < Math.pow(26, keyLength)) {
 						// Only perform miss-test if there is a possibility of misses, i.e. not all keys will
 						// be in the table.
-						incrementTime(accumulatedTimes, getTestId("GetMissSS" + String.format("%03d", keyLength), s),
-								timeCall(() -> HashShootout.runGetTestStringString(preinsertedKeys, keyList2)), keys);
+						measure(accumulatedTimes, latencies, getTestId("GetMissSS" + String.format("%03d", keyLength), s),
+								s, () -> s.runGetTestStringString(preinsertedKeys, keyList2), keys);
+					}
+					if (preinsertedKeys.stats() != null) {
+						tableStats.put(getTestId("StatsSS" + String.format("%03d", keyLength), s),
+								preinsertedKeys.stats());
 					}
-					if (iAmReallyReallyPatient) {
-						incrementTime(accumulatedTimes, getTestId("PutBI", s),
-								timeCall(() -> s.runPutTestBadInt(testSize)), keys);
+					if (s.floodResistant || iAmReallyReallyPatient && !s.stringKeysOnly) {
+						measure(accumulatedTimes, latencies, getTestId("PutBI", s), s,
+								() -> s.runPutTestBadInt(testSize), keys);
 					}
 				}
 				System.out.print(testIdx % 10);
 			}
+
+			// The primitive tables are not HashTableFactory products; run them
+			// as many times as the boxed PutII/PutLL above so the sums compare.
+			for (int j = 0; j < keyLists1.size(); j++) {
+				final int testSize = keys;
+				System.gc();
+				measure(accumulatedTimes, latencies, getTestId("PutII", IntIntOpenAddressingHash2K.class),
+						dummyShootout, () -> dummyShootout.runPutTestIntIntPrimitive(testSize), keys);
+				measure(accumulatedTimes, latencies, getTestId("PutLL", LongLongOpenAddressingHash2K.class),
+						dummyShootout, () -> dummyShootout.runPutTestLongLongPrimitive(testSize), keys);
+			}
 		}
 		System.out.println("");
 		for (Map.Entry<String, Double> d : accumulatedTimes.entrySet()) {
-			System.out.printf("%40s:\t%8.1f ns/operation\n", d.getKey(), d.getValue() / testRuns);
+			System.out.printf("%40s:\t%8.1f ns/operation", d.getKey(), d.getValue() / testRuns);
+			if (latencies != null) {
+				LatencyHistogram l = latencies.get(d.getKey());
+				System.out.printf("\tp50 %8d\tp90 %8d\tp99 %8d\tp99.9 %8d\tmax %10d ns", l.percentile(50),
+						l.percentile(90), l.percentile(99), l.percentile(99.9), l.max());
+			}
+			System.out.println();
+		}
+		for (Map.Entry<String, Double> d : accumulatedBytes.entrySet()) {
+			System.out.printf("%40s:\t%8.1f bytes/entry\n", d.getKey(), d.getValue() / testRuns);
+		}
+		for (Map.Entry<String, Double> d : accumulatedProbes.entrySet()) {
+			System.out.printf("%40s:\t%8.2f probes/hit\n", d.getKey(), d.getValue() / testRuns);
+		}
+		for (Map.Entry<String, HashTableStats> d : tableStats.entrySet()) {
+			System.out.printf("%40s:\t%s\n", d.getKey(), d.getValue());
+		}
+	}
+
+	// The multi-threaded mode: every implementation runs MixedSS with 1, 2, 4,
+	// ... and finally maxThreads threads, each thread doing keys operations,
+	// and the aggregate throughput over all threads is printed.
+	private static void runConcurrent(List<HashTableFactory> factories, int testRuns, int keys, int maxThreads) {
+		System.err.printf("Will do %d testruns with %d keys and 1 to %d threads each.\n", testRuns, keys,
+				maxThreads);
+		List<Integer> threadCounts = new ArrayList<>();
+		for (int t = 1; t < maxThreads; t *= 2) {
+			threadCounts.add(t);
+		}
+		threadCounts.add(maxThreads);
+		List<HashShootout> hs = new ArrayList<>();
+		for (HashTableFactory f : factories) {
+			hs.add(new HashShootout(f));
+		}
+		HashShootout dummyShootout = new HashShootout(null);
+		Map<String, Double> accumulatedOps = new TreeMap<>();
+
+		for (int testIdx = 0; testIdx < testRuns; testIdx++) {
+			List<List<String>> keyLists = new ArrayList<>();
+			generateAndAddList(keyLists, keys, MIXED_KEY_LENGTH, dummyShootout);
+			List<String> keyList = keyLists.get(0);
+			Collections.shuffle(hs);
+			for (HashShootout s : hs) {
+				for (int threads : threadCounts) {
+					System.gc();
+					long time = s.runMixedTestStringString(keyList, threads, keys);
+					String id = getTestId("MixedSS" + String.format("%03d", threads), s);
+					accumulatedOps.merge(id, threads * (double) keys / time * 1e9, Double::sum);
+				}
+				System.out.print(testIdx % 10);
+			}
+		}
+		System.out.println("");
+		for (Map.Entry<String, Double> d : accumulatedOps.entrySet()) {
+			System.out.printf("%40s:\t%12.0f ops/second\n", d.getKey(), d.getValue() / testRuns);
+		}
+	}
+
+	// A long->long table in the offheap mode.
+	private static abstract class LargeTable {
+		abstract void put(long key, long value);
+
+		abstract long get(long key);
+
+		long offHeapBytes() {
+			return 0;
+		}
+
+		void close() {
+		}
+	}
+
+	private static List<Map.Entry<String, Supplier<LargeTable>>> largeTables() {
+		List<Map.Entry<String, Supplier<LargeTable>>> tables = new ArrayList<>();
+		tables.add(Map.entry(OffHeapLongLongHash2K.class.getName(), () -> new LargeTable() {
+			private final OffHeapLongLongHash2K h = new OffHeapLongLongHash2K();
+
+			@Override
+			void put(long key, long value) {
+				this.h.put(key, value);
+			}
+
+			@Override
+			long get(long key) {
+				return this.h.getOrDefault(key, 0);
+			}
+
+			@Override
+			long offHeapBytes() {
+				return this.h.offHeapBytes();
+			}
+
+			@Override
+			void close() {
+				this.h.close();
+			}
+		}));
+		tables.add(Map.entry(LongLongOpenAddressingHash2K.class.getName(), () -> new LargeTable() {
+			private final LongLongOpenAddressingHash2K h = new LongLongOpenAddressingHash2K();
+
+			@Override
+			void put(long key, long value) {
+				this.h.put(key, value);
+			}
+
+			@Override
+			long get(long key) {
+				return this.h.getOrDefault(key, 0);
+			}
+		}));
+		tables.add(Map.entry(OpenAddressingHash2K.class.getName(), () -> boxed(new OpenAddressingHash2K<>())));
+		tables.add(Map.entry(HashMapAdapter.class.getName(), () -> boxed(new HashMapAdapter<>())));
+		return tables;
+	}
+
+	private static LargeTable boxed(HashTable<Long, Long> h) {
+		return new LargeTable() {
+			@Override
+			void put(long key, long value) {
+				h.put(Long.valueOf(key), Long.valueOf(value));
+			}
+
+			@Override
+			long get(long key) {
+				Long v = h.get(Long.valueOf(key));
+				return v != null ? v.longValue() : 0;
+			}
+		};
+	}
+
+	// The offheap mode: builds long->long tables of keys random keys (meant for
+	// 10M and more) with the off-heap table, the primitive on-heap table and
+	// two boxed ones, then looks every key up. Prints the time per put and get,
+	// the GC time they caused, and the heap and native memory the full table
+	// holds. The boxed tables need a few GB of heap at 10M keys.
+	private static void runOffHeap(int testRuns, int keys) {
+		System.err.printf("Will do %d testruns with %d long keys each.\n", testRuns, keys);
+		List<Map.Entry<String, Supplier<LargeTable>>> tables = largeTables();
+		Map<String, Double> accumulated = new TreeMap<>();
+		for (int testIdx = 0; testIdx < testRuns; testIdx++) {
+			Collections.shuffle(tables);
+			for (Map.Entry<String, Supplier<LargeTable>> t : tables) {
+				String name = t.getKey();
+				long heapBefore = usedHeap();
+				long gcBefore = gcMillis();
+				LargeTable h = t.getValue().get();
+				SplittableRandom rng = new SplittableRandom(testIdx);
+				long start = System.nanoTime();
+				for (int i = 0; i < keys; i++) {
+					h.put(rng.nextLong(), i);
+				}
+				incrementTime(accumulated, getTestId("PutLL", name), System.nanoTime() - start, keys);
+				long gcPut = gcMillis();
+				incrementTime(accumulated, getTestId("PutLLGCms", name), gcPut - gcBefore, 1);
+
+				rng = new SplittableRandom(testIdx);
+				long sum = 0;
+				start = System.nanoTime();
+				for (int i = 0; i < keys; i++) {
+					sum += h.get(rng.nextLong());
+				}
+				incrementTime(accumulated, getTestId("GetLL", name), System.nanoTime() - start, keys);
+				incrementTime(accumulated, getTestId("GetLLGCms", name), gcMillis() - gcPut, 1);
+				// The values are 0 to keys - 1 (a repeated random key is all but impossible).
+				if (sum != (long) keys * (keys - 1) / 2) {
+					throw new IllegalStateException(name + " lost keys");
+				}
+
+				incrementTime(accumulated, getTestId("HeapMB", name), usedHeap() - heapBefore, 1 << 20);
+				incrementTime(accumulated, getTestId("DirectMB", name), Math.max(h.offHeapBytes(), directBytes()),
+						1 << 20);
+				Reference.reachabilityFence(h);
+				h.close();
+				System.out.print(testIdx % 10);
+			}
+		}
+		System.out.println("");
+		for (Map.Entry<String, Double> d : accumulated.entrySet()) {
+			System.out.printf("%40s:\t%10.1f\n", d.getKey(), d.getValue() / testRuns);
+		}
+	}
+
+	// The snapshot mode: how long a restart takes until the first lookup can
+	// be answered, rebuilding a table of keys entries through put() against
+	// loading a snapshot of it (see Snapshots), for long keys and 8-char String
+	// keys. The snapshot file is freshly written, so it is read from the page
+	// cache, as after a restart that does not reboot the machine. Also prints
+	// the time per get() of a full pass over the keys afterwards.
+	private static void runSnapshot(int testRuns, int keys) {
+		System.err.printf("Will do %d testruns with %d keys each.\n", testRuns, keys);
+		HashShootout dummyShootout = new HashShootout(null);
+		Map<String, Double> accumulated = new TreeMap<>();
+		try {
+			Path file = Files.createTempFile("hashtables", ".snapshot");
+			try {
+				for (int testIdx = 0; testIdx < testRuns; testIdx++) {
+					long[] longKeys = new SplittableRandom(testIdx).longs(keys).toArray();
+					List<List<String>> keyLists = new ArrayList<>();
+					generateAndAddList(keyLists, keys, 8, dummyShootout);
+					List<String> stringKeys = keyLists.get(0);
+
+					System.gc();
+					long start = System.nanoTime();
+					LongLongOpenAddressingHash2K ll = new LongLongOpenAddressingHash2K();
+					for (long k : longKeys) {
+						ll.put(k, k);
+					}
+					ll.getOrDefault(longKeys[0], 0);
+					String rebuilt = LongLongOpenAddressingHash2K.class.getName();
+					incrementTime(accumulated, getTestId("FirstGetLLms", rebuilt), System.nanoTime() - start, 1000000);
+					incrementTime(accumulated, getTestId("GetLL", rebuilt), timeGets(ll, longKeys), keys);
+					Snapshots.save(ll, file);
+					ll = null;
+
+					System.gc();
+					start = System.nanoTime();
+					try (MappedLongLongHash2K m = Snapshots.loadLongLong(file)) {
+						m.getOrDefault(longKeys[0], 0);
+						String loaded = MappedLongLongHash2K.class.getName();
+						incrementTime(accumulated, getTestId("FirstGetLLms", loaded), System.nanoTime() - start,
+								1000000);
+						incrementTime(accumulated, getTestId("GetLL", loaded), timeGets(m, longKeys), keys);
+					}
+
+					System.gc();
+					start = System.nanoTime();
+					OpenAddressingHash2K<String, String> ss = new OpenAddressingHash2K<>();
+					for (String k : stringKeys) {
+						ss.put(k, k);
+					}
+					ss.get(stringKeys.get(0));
+					rebuilt = OpenAddressingHash2K.class.getName();
+					incrementTime(accumulated, getTestId("FirstGetSSms", rebuilt), System.nanoTime() - start, 1000000);
+					incrementTime(accumulated, getTestId("GetSS", rebuilt), timeGets(ss, stringKeys), keys);
+					Snapshots.save(ss, file);
+					ss = null;
+
+					System.gc();
+					start = System.nanoTime();
+					try (MappedStringHash2K m = Snapshots.loadString(file)) {
+						m.get(stringKeys.get(0));
+						String loaded = MappedStringHash2K.class.getName();
+						incrementTime(accumulated, getTestId("FirstGetSSms", loaded), System.nanoTime() - start,
+								1000000);
+						incrementTime(accumulated, getTestId("GetSS", loaded), timeGets(m, stringKeys), keys);
+					}
+					System.out.print(testIdx % 10);
+				}
+			} finally {
+				Files.delete(file);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		System.out.println("");
+		for (Map.Entry<String, Double> d : accumulated.entrySet()) {
+			System.out.printf("%40s:\t%10.1f\n", d.getKey(), d.getValue() / testRuns);
+		}
+	}
+
+	private static long timeGets(LongLongOpenAddressingHash2K h, long[] keys) {
+		long start = System.nanoTime();
+		for (long k : keys) {
+			h.getOrDefault(k, 0);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static long timeGets(MappedLongLongHash2K h, long[] keys) {
+		long start = System.nanoTime();
+		for (long k : keys) {
+			h.getOrDefault(k, 0);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static long timeGets(HashTable<String, String> h, List<String> keys) {
+		long start = System.nanoTime();
+		for (String k : keys) {
+			h.get(k);
+		}
+		return System.nanoTime() - start;
+	}
+
+	// The spill mode: puts keys 32-char String keys and values into a
+	// SpillingHash2K and into an OpenAddressingHash2K, then gets random keys,
+	// uniformly and with 90 % of them among 1 % hot keys. Run it with a heap
+	// (-Xmx, the heap budget) too small for the keys: the keys are generated
+	// from their index on the fly, so nothing else holds on to them, and the
+	// heap table reports how many keys it got to before running out of heap.
+	// Prints ns per operation, the heap and disk the spilling table takes up and
+	// the resident set size of the process.
+	private static void runSpill(int testRuns, int keys, int cacheEntries) {
+		System.err.printf("Will do %d testruns with %d keys each and a heap of %d MB.\n", testRuns, keys,
+				Runtime.getRuntime().maxMemory() >> 20);
+		Map<String, Double> accumulated = new TreeMap<>();
+		String spilling = SpillingHash2K.class.getName();
+		String heap = OpenAddressingHash2K.class.getName();
+		try {
+			for (int testIdx = 0; testIdx < testRuns; testIdx++) {
+				Path dir = Files.createTempDirectory("hashtables");
+				long heapBefore = usedHeap();
+				try (SpillingHash2K<String, String> h = new SpillingHash2K<>(dir, SpillingHash2K.UTF_8,
+						SpillingHash2K.UTF_8, cacheEntries, 64 << 20)) {
+					incrementTime(accumulated, getTestId("PutSS", spilling), timeSpillPuts(h, keys), keys);
+					incrementTime(accumulated, getTestId("GetSS", spilling), timeSpillGets(h, keys, testIdx, false),
+							keys);
+					incrementTime(accumulated, getTestId("GetHotSS", spilling),
+							timeSpillGets(h, keys, testIdx, true), keys);
+					incrementTime(accumulated, getTestId("HeapMB", spilling), usedHeap() - heapBefore, 1 << 20);
+					incrementTime(accumulated, getTestId("IndexMB", spilling), h.indexBytes(), 1 << 20);
+					incrementTime(accumulated, getTestId("DiskMB", spilling), h.diskBytes(), 1 << 20);
+					incrementTime(accumulated, getTestId("ResidentMB", spilling), residentBytes(), 1 << 20);
+				}
+				Files.delete(dir);
+
+				OpenAddressingHash2K<String, String> h = new OpenAddressingHash2K<>();
+				try {
+					incrementTime(accumulated, getTestId("PutSS", heap), timeSpillPuts(h, keys), keys);
+					incrementTime(accumulated, getTestId("GetSS", heap), timeSpillGets(h, keys, testIdx, false), keys);
+				} catch (OutOfMemoryError e) {
+					int inserted = h.size();
+					h = null;
+					incrementTime(accumulated, getTestId("OutOfHeapAtKeys", heap), inserted, 1);
+				}
+				h = null;
+				System.out.print(testIdx % 10);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		System.out.println("");
+		for (Map.Entry<String, Double> d : accumulated.entrySet()) {
+			System.out.printf("%40s:\t%12.1f\n", d.getKey(), d.getValue() / testRuns);
+		}
+	}
+
+	// A 32-char key (or, with value set, value) made up from index.
+	private static String spillString(int index, boolean value) {
+		char[] c = new char[32];
+		long x = HashUtils.mix(value ? ~(long) index : index);
+		for (int i = 0; i < c.length; i++) {
+			if (i % 12 == 0) {
+				x = HashUtils.mix(x + i);
+			}
+			c[i] = (char) ('a' + Math.floorMod(x, 26));
+			x /= 26;
+		}
+		return new String(c);
+	}
+
+	private static long timeSpillPuts(HashTable<String, String> h, int keys) {
+		long start = System.nanoTime();
+		for (int i = 0; i < keys; i++) {
+			h.put(spillString(i, false), spillString(i, true));
+		}
+		return System.nanoTime() - start;
+	}
+
+	// With hot set, 90 % of the gets go to the first 1 % of the keys.
+	private static long timeSpillGets(HashTable<String, String> h, int keys, int seed, boolean hot) {
+		SplittableRandom rng = new SplittableRandom(seed);
+		int hotKeys = Math.max(keys / 100, 1);
+		long start = System.nanoTime();
+		for (int i = 0; i < keys; i++) {
+			int k = hot && rng.nextInt(10) != 0 ? rng.nextInt(hotKeys) : rng.nextInt(keys);
+			if (h.get(spillString(k, false)) == null) {
+				throw new IllegalStateException("Lost key " + k);
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+	// The resident set size of the process, heap, mapped files and all, or -1
+	// where /proc/self/status does not tell.
+	private static long residentBytes() {
+		try {
+			for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+				if (line.startsWith("VmRSS:")) {
+					return Long.parseLong(line.replaceAll("[^0-9]", "")) << 10;
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			// Not Linux.
+		}
+		return -1;
+	}
+
+	// Total time all collectors have spent collecting so far.
+	private static long gcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += Math.max(gc.getCollectionTime(), 0);
 		}
+		return millis;
+	}
+
+	// Native memory currently held by direct ByteBuffers.
+	private static long directBytes() {
+		for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+			if (pool.getName().equals("direct")) {
+				return pool.getMemoryUsed();
+			}
+		}
+		return 0;
+	}
+
+	private static long usedHeap() {
+		// Not exact, but collecting twice gets rid of most of the garbage that
+		// is still waiting for finalization.
+		System.gc();
+		System.gc();
+		Runtime r = Runtime.getRuntime();
+		return r.totalMemory() - r.freeMemory();
+	}
+
+	// Measures the heap retained by a String->String table, not counting the
+	// keys and values themselves (they are referenced from the lists anyway).
+	private static void incrementBytes(Map<String, Double> accs, String id, HashShootout s, List<String> keys,
+			List<String> values) {
+		long before = usedHeap();
+		HashTable<String, String> h = s.buildStringString(keys, values);
+		long after = usedHeap();
+		Reference.reachabilityFence(h);
+		incrementTime(accs, id, after - before, h.size());
+	}
+
+	// As incrementBytes, but counting the keys too: the table gets copies of
+	// them that nothing else refers to.
+	private static void incrementBytesWithKeys(Map<String, Double> accs, String id, HashShootout s,
+			List<String> keys, List<String> values) {
+		long before = usedHeap();
+		List<String> copies = new ArrayList<>(keys.size());
+		for (String k : keys) {
+			copies.add(new String(k.toCharArray()));
+		}
+		HashTable<String, String> h = s.buildStringString(copies, values);
+		copies = null;
+		long after = usedHeap();
+		Reference.reachabilityFence(h);
+		incrementTime(accs, id, after - before, h.size());
+	}
+
+	private static void measure(Map<String, Double> accs, Map<String, LatencyHistogram> latencies, String id,
+			HashShootout s, Runnable test, int tests) {
+		// Look up the histogram before starting the clock.
+		s.latencies = latencies != null ? latencies.computeIfAbsent(id, k -> new LatencyHistogram()) : null;
+		incrementTime(accs, id, timeCall(test), tests);
+		s.latencies = null;
 	}
 
 	private static long timeCall(Runnable test) {
@@ -263,6 +1067,15 @@ public class HashShootout {
 	}
 
 	private static String getTestId(String testName, HashShootout s) {
-		return String.format("%40s\t%10s", s.factory.newInstance().getClass().getName(), testName);
+		String name = s.factory.newInstance().getClass().getName();
+		return getTestId(testName, s.variant != null ? name + "-" + s.variant : name);
+	}
+
+	private static String getTestId(String testName, Class<?> implementation) {
+		return getTestId(testName, implementation.getName());
+	}
+
+	private static String getTestId(String testName, String implementation) {
+		return String.format("%40s\t%10s", implementation, testName);
 	}
 }
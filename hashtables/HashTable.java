@@ -6,4 +6,28 @@ public interface HashTable<K, V> {
 	V get(K key);
 
 	int size();
-}
+
+	/*
+	 * Grows the table, if needed, so that it can hold expectedSize entries
+	 * without growing again. Tables that cannot be resized on request ignore
+	 * this.
+	 */
+	default void ensureCapacity(int expectedSize) {
+	}
+
+	/*
+	 * Shrinks the table to the smallest capacity that holds its current
+	 * entries. Tables that cannot be resized on request ignore this.
+	 */
+	default void trimToSize() {
+	}
+
+	/*
+	 * Returns what the table has recorded about its lookups and resizes, or null
+	 * if it records nothing: tables only record with -Dhashtables.stats=true,
+	 * and not all of them do.
+	 */
+	default HashTableStats stats() {
+		return null;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,185 @@
+package hashtables;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/*
+ * A snapshot of what a table has recorded about its own operation since it
+ * was created: how many keys get() had to compare, how often and how long the
+ * table resized, and how full it is. Returned by HashTable.stats().
+ *
+ * Probe lengths count the keys a get() compared: 1 for a hit in the home slot,
+ * 0 for a miss that found its home slot empty.
+ */
+public final class HashTableStats {
+	private final long[] hitProbes;
+	private final long[] missProbes;
+	private final int longestProbe;
+	private final int resizes;
+	private final long resizeNanos;
+	private final int size;
+	private final int capacity;
+
+	HashTableStats(long[] hitProbes, long[] missProbes, int longestProbe, int resizes, long resizeNanos, int size,
+			int capacity) {
+		this.hitProbes = hitProbes;
+		this.missProbes = missProbes;
+		this.longestProbe = longestProbe;
+		this.resizes = resizes;
+		this.resizeNanos = resizeNanos;
+		this.size = size;
+		this.capacity = capacity;
+	}
+
+	/*
+	 * Element i is the number of hits that compared i keys; the last element
+	 * counts all hits that compared more.
+	 */
+	public long[] hitProbeHistogram() {
+		return this.hitProbes.clone();
+	}
+
+	/*
+	 * As hitProbeHistogram(), for misses.
+	 */
+	public long[] missProbeHistogram() {
+		return this.missProbes.clone();
+	}
+
+	public double averageHitProbes() {
+		return average(this.hitProbes);
+	}
+
+	public double averageMissProbes() {
+		return average(this.missProbes);
+	}
+
+	// Counts the last, open-ended bucket at its lower bound.
+	private static double average(long[] histogram) {
+		long count = 0;
+		long sum = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			count += histogram[i];
+			sum += i * histogram[i];
+		}
+		return count > 0 ? (double) sum / count : 0;
+	}
+
+	/*
+	 * The most keys a single get() has compared.
+	 */
+	public int longestProbe() {
+		return this.longestProbe;
+	}
+
+	public int resizes() {
+		return this.resizes;
+	}
+
+	/*
+	 * Total time spent resizing. In ResizeMode.INCREMENTAL only the allocation
+	 * of the new table counts; the moves are spread over later operations.
+	 */
+	public long resizeNanos() {
+		return this.resizeNanos;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public int capacity() {
+		return this.capacity;
+	}
+
+	public double loadFactor() {
+		return (double) this.size / this.capacity;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("load %.2f, probes/hit %.2f, probes/miss %.2f, longest probe %d, %d resizes in %.1f ms",
+				loadFactor(), averageHitProbes(), averageMissProbes(), this.longestProbe, this.resizes,
+				this.resizeNanos / 1e6);
+	}
+
+	/*
+	 * Registers an MXBean that shows the current stats() of table on the
+	 * platform MBean server, under hashtables:type=HashTable,name=<name>, and
+	 * returns its name. Unregister it when the table is no longer needed, or the
+	 * server keeps the table reachable.
+	 */
+	public static ObjectName register(String name, HashTable<?, ?> table) {
+		try {
+			ObjectName objectName = new ObjectName("hashtables:type=HashTable,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(table), objectName);
+			return objectName;
+		} catch (JMException e) {
+			throw new IllegalStateException("Cannot register " + name, e);
+		}
+	}
+
+	private static final class MXBean implements HashTableStatsMXBean {
+		private final HashTable<?, ?> table;
+
+		MXBean(HashTable<?, ?> table) {
+			this.table = table;
+		}
+
+		// Tables that do not record statistics (or with recording switched off)
+		// only report their size.
+		private HashTableStats stats() {
+			HashTableStats s = this.table.stats();
+			return s != null ? s
+					: new HashTableStats(new long[0], new long[0], 0, 0, 0, this.table.size(), 0);
+		}
+
+		@Override
+		public long[] getHitProbeHistogram() {
+			return stats().hitProbeHistogram();
+		}
+
+		@Override
+		public long[] getMissProbeHistogram() {
+			return stats().missProbeHistogram();
+		}
+
+		@Override
+		public double getAverageHitProbes() {
+			return stats().averageHitProbes();
+		}
+
+		@Override
+		public double getAverageMissProbes() {
+			return stats().averageMissProbes();
+		}
+
+		@Override
+		public int getLongestProbe() {
+			return stats().longestProbe();
+		}
+
+		@Override
+		public int getResizes() {
+			return stats().resizes();
+		}
+
+		@Override
+		public long getResizeNanos() {
+			return stats().resizeNanos();
+		}
+
+		@Override
+		public int getSize() {
+			return this.table.size();
+		}
+
+		@Override
+		public double getLoadFactor() {
+			HashTableStats s = stats();
+			return s.capacity() > 0 ? s.loadFactor() : Double.NaN;
+		}
+	}
+}
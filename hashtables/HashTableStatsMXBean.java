@@ -0,0 +1,24 @@
+package hashtables;
+
+/*
+ * The JMX view of HashTable.stats(); see HashTableStats.register().
+ */
+public interface HashTableStatsMXBean {
+	long[] getHitProbeHistogram();
+
+	long[] getMissProbeHistogram();
+
+	double getAverageHitProbes();
+
+	double getAverageMissProbes();
+
+	int getLongestProbe();
+
+	int getResizes();
+
+	long getResizeNanos();
+
+	int getSize();
+
+	double getLoadFactor();
+}
@@ -0,0 +1,104 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * Runs with -Dhashtables.stats=true, in a surefire execution of its own (see
+ * pom.xml).
+ */
+class HashTableStatsTest {
+	private static final int KEYS = 10000;
+
+	private static void fill(HashTable<Integer, Integer> h) {
+		for (int k = 0; k < KEYS; k++) {
+			h.put(k, k);
+		}
+		for (int k = 0; k < 2 * KEYS; k++) {
+			h.get(k);
+		}
+	}
+
+	private static void checkStats(HashTable<Integer, Integer> h) {
+		fill(h);
+		HashTableStats s = h.stats();
+		long hits = 0;
+		for (long c : s.hitProbeHistogram()) {
+			hits += c;
+		}
+		long misses = 0;
+		for (long c : s.missProbeHistogram()) {
+			misses += c;
+		}
+		assertEquals(KEYS, hits);
+		assertEquals(KEYS, misses);
+		// A hit compares at least the key it finds.
+		assertEquals(0, s.hitProbeHistogram()[0]);
+		assertTrue(s.averageHitProbes() >= 1);
+		assertTrue(s.longestProbe() >= s.averageHitProbes());
+		assertTrue(s.resizes() > 0);
+		assertEquals(KEYS, s.size());
+		assertEquals((double) KEYS / s.capacity(), s.loadFactor());
+	}
+
+	@Test
+	/*
+	 * Every get() is recorded once, as a hit or a miss, and the table reports
+	 * its resizes from the initial capacity.
+	 */
+	void testOpenAddressing() {
+		assertTrue(StatsRecorder.ENABLED);
+		checkStats(new OpenAddressingHash2K<>());
+		checkStats(new OpenAddressingHash2K<>(ProbeStrategy.TRIANGULAR));
+		checkStats(new OpenAddressingHash2K<>(ResizeMode.INCREMENTAL));
+		checkStats(new OpenAddressingHashPrime<>());
+		checkStats(new RobinHoodHash2K<>());
+	}
+
+	@Test
+	/*
+	 * The chaining tables count the chain entries a get() compares as probes.
+	 */
+	void testSeparateChaining() {
+		checkStats(new SeparateChainingHash2K<>());
+		checkStats(new SeparateChainingHash2K<>(ResizeMode.INCREMENTAL));
+		checkStats(new SeparateChainingHashPrime<>());
+	}
+
+	@Test
+	/*
+	 * A table that does not record statistics returns null.
+	 */
+	void testNotRecorded() {
+		assertNull(new SwissHash2K<Integer, Integer>().stats());
+	}
+
+	@Test
+	/*
+	 * The MXBean shows the current statistics of the table.
+	 */
+	void testRegister() throws JMException {
+		OpenAddressingHash2K<Integer, Integer> h = new OpenAddressingHash2K<>();
+		ObjectName name = HashTableStats.register("testRegister", h);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			fill(h);
+			assertEquals(KEYS, server.getAttribute(name, "Size"));
+			assertEquals(h.stats().resizes(), server.getAttribute(name, "Resizes"));
+			assertEquals(h.stats().loadFactor(), server.getAttribute(name, "LoadFactor"));
+			long[] histogram = (long[]) server.getAttribute(name, "HitProbeHistogram");
+			assertEquals(StatsRecorder.HISTOGRAM_SIZE, histogram.length);
+		} finally {
+			server.unregisterMBean(name);
+		}
+	}
+}
@@ -147,4 +147,34 @@ abstract class HashTableTest {
 
 	}
 
+	@Test
+	/*
+	 * Grows and shrinks the table on request between puts and checks that no
+	 * key gets lost. Tables that ignore these requests pass trivially.
+	 */
+	void testEnsureCapacityAndTrimToSize() {
+		assertTimeoutPreemptively(ofSeconds(1), () -> {
+			int[] keys = getUniqueInts(this.MAX_OPS);
+			HashTable<Integer, Integer> h = getHashTableFactory().newInstance();
+			h.ensureCapacity(this.MAX_OPS / 2);
+			for (int j = 0; j < this.MAX_OPS; j++) {
+				h.put(Integer.valueOf(keys[j]), Integer.valueOf(j));
+				if (j == this.MAX_OPS / 4) {
+					h.trimToSize();
+				} else if (j == this.MAX_OPS / 3) {
+					h.ensureCapacity(this.MAX_OPS * 2);
+				}
+			}
+			h.trimToSize();
+			assertEquals(this.MAX_OPS, h.size());
+			for (int j = 0; j < this.MAX_OPS; j++) {
+				assertEquals(Integer.valueOf(j), h.get(Integer.valueOf(keys[j])));
+			}
+			// Smaller than the current size, so nothing happens.
+			h.ensureCapacity(10);
+			assertEquals(Integer.valueOf(0), h.get(Integer.valueOf(keys[0])));
+		});
+
+	}
+
 }
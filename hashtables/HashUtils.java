@@ -1,5 +1,8 @@
 package hashtables;
 
+import java.math.BigInteger;
+import java.util.function.IntConsumer;
+
 public enum HashUtils {
 	;
 
@@ -24,4 +27,77 @@ public enum HashUtils {
 		long x = mix((long) v);
 		return (int) ((x ^ x >>> 32) & 0xFFFFFFFFL);
 	}
+
+	// Precomputes the multiplier fastMod needs for divisor, i.e. ceil(2^64 /
+	// divisor). Recompute whenever the divisor (the table size) changes.
+	public static long fastModMultiplier(int divisor) {
+		return Long.divideUnsigned(-1L, divisor) + 1;
+	}
+
+	// Computes a % divisor for a >= 0 and divisor > 1 with two multiplications
+	// instead of an integer division (which costs 20-40 cycles).
+	// Lemire, Kaser, Kurz: Faster Remainder by Direct Computation
+	// https://arxiv.org/abs/1902.01961
+	public static int fastMod(int a, long multiplier, int divisor) {
+		long lowbits = multiplier * a;
+		// Unsigned high 64 bits of lowbits * divisor; divisor is non-negative, so
+		// only a negative lowbits needs correcting.
+		return (int) (Math.multiplyHigh(lowbits, divisor) + (lowbits >> 63 & divisor));
+	}
+
+	// The smallest power of two, and at least minCapacity, that holds
+	// expectedSize entries without going over maxLoadFactor.
+	public static int powerOfTwoCapacity(int expectedSize, double maxLoadFactor, int minCapacity) {
+		int capacity = minCapacity;
+		while (capacity * maxLoadFactor < expectedSize && capacity < 1 << 30) {
+			capacity *= 2;
+		}
+		return capacity;
+	}
+
+	// The smallest prime, and at least minCapacity, that holds expectedSize
+	// entries without going over maxLoadFactor.
+	public static int primeCapacity(int expectedSize, double maxLoadFactor, int minCapacity) {
+		long needed = Math.max(minCapacity, (long) Math.ceil(expectedSize / maxLoadFactor));
+		return (int) BigInteger.valueOf(needed - 1).nextProbablePrime().longValue();
+	}
+
+	// The shared part of ensureCapacity() and trimToSize() for tables whose
+	// capacity is a power of two (respectively a prime): computes the capacity
+	// for expectedSize (respectively size) entries and, if that is larger
+	// (respectively smaller) than the current capacity, passes it to rehash.
+	// The entries rehash moves are known to be distinct and to fit, so it needs
+	// to compare no keys and check no load factor.
+
+	public static void ensurePowerOfTwoCapacity(int expectedSize, double maxLoadFactor, int minCapacity,
+			int capacity, IntConsumer rehash) {
+		int newCapacity = powerOfTwoCapacity(expectedSize, maxLoadFactor, minCapacity);
+		if (newCapacity > capacity) {
+			rehash.accept(newCapacity);
+		}
+	}
+
+	public static void trimPowerOfTwoCapacity(int size, double maxLoadFactor, int minCapacity, int capacity,
+			IntConsumer rehash) {
+		int newCapacity = powerOfTwoCapacity(size, maxLoadFactor, minCapacity);
+		if (newCapacity < capacity) {
+			rehash.accept(newCapacity);
+		}
+	}
+
+	public static void ensurePrimeCapacity(int expectedSize, double maxLoadFactor, int minCapacity, int capacity,
+			IntConsumer rehash) {
+		int newCapacity = primeCapacity(expectedSize, maxLoadFactor, minCapacity);
+		if (newCapacity > capacity) {
+			rehash.accept(newCapacity);
+		}
+	}
+
+	public static void trimPrimeCapacity(int size, double maxLoadFactor, int minCapacity, int capacity,
+			IntConsumer rehash) {
+		int newCapacity = primeCapacity(size, maxLoadFactor, minCapacity);
+		if (newCapacity < capacity) {
+			rehash.accept(newCapacity);
+		}
+	}
 }
@@ -0,0 +1,69 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class HashUtilsTest {
+
+	@Test
+	/*
+	 * fastMod must agree with % for non-negative ints and every divisor size,
+	 * including the extremes of both.
+	 */
+	void testFastMod() {
+		SplittableRandom rng = new SplittableRandom(1);
+		int[] divisors = { 2, 3, 5, 7, 8, 1009, 65537, 1 << 30, Integer.MAX_VALUE };
+		for (int d : divisors) {
+			long m = HashUtils.fastModMultiplier(d);
+			for (int a : new int[] { 0, 1, d - 1, d, Integer.MAX_VALUE, Integer.MAX_VALUE - 1 }) {
+				if (a >= 0) {
+					assertEquals(a % d, HashUtils.fastMod(a, m, d), a + " % " + d);
+				}
+			}
+		}
+		for (int i = 0; i < 1000000; i++) {
+			int d = rng.nextInt(2, Integer.MAX_VALUE);
+			int a = rng.nextInt() & 0x7FFFFFFF;
+			assertEquals(a % d, HashUtils.fastMod(a, HashUtils.fastModMultiplier(d), d), a + " % " + d);
+		}
+	}
+
+	@Test
+	/*
+	 * The capacities must hold the expected size at the given load factor, be
+	 * the smallest such power of two or prime, and never go below the minimum.
+	 */
+	void testCapacities() {
+		assertEquals(4, HashUtils.powerOfTwoCapacity(0, 0.75, 4));
+		assertEquals(4, HashUtils.powerOfTwoCapacity(3, 0.75, 4));
+		assertEquals(8, HashUtils.powerOfTwoCapacity(4, 0.75, 4));
+		assertEquals(1 << 20, HashUtils.powerOfTwoCapacity(2000000, 2, 8));
+		assertEquals(5, HashUtils.primeCapacity(0, 0.75, 5));
+		assertEquals(5, HashUtils.primeCapacity(3, 0.75, 5));
+		assertEquals(7, HashUtils.primeCapacity(4, 0.75, 5));
+		assertEquals(1009, HashUtils.primeCapacity(750, 0.75, 5));
+	}
+
+	@Test
+	/*
+	 * The ensure helpers only ever grow and the trim helpers only ever shrink,
+	 * to the capacity that powerOfTwoCapacity/primeCapacity compute.
+	 */
+	void testResizeHelpers() {
+		List<Integer> rehashes = new ArrayList<>();
+		HashUtils.ensurePowerOfTwoCapacity(100, 0.75, 4, 256, rehashes::add);
+		HashUtils.ensurePowerOfTwoCapacity(100, 0.75, 4, 64, rehashes::add);
+		HashUtils.trimPowerOfTwoCapacity(100, 0.75, 4, 64, rehashes::add);
+		HashUtils.trimPowerOfTwoCapacity(100, 0.75, 4, 1024, rehashes::add);
+		HashUtils.ensurePrimeCapacity(750, 0.75, 5, 1009, rehashes::add);
+		HashUtils.ensurePrimeCapacity(750, 0.75, 5, 5, rehashes::add);
+		HashUtils.trimPrimeCapacity(750, 0.75, 5, 1009, rehashes::add);
+		HashUtils.trimPrimeCapacity(750, 0.75, 5, 4001, rehashes::add);
+		assertEquals(List.of(256, 256, 1009, 1009), rehashes);
+	}
+}
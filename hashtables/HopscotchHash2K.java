@@ -0,0 +1,244 @@
+package hashtables;
+
+import java.util.Arrays;
+
+/*
+ * Hopscotch hashing: every key sits within NEIGHBORHOOD slots of its home
+ * slot, and every home slot has a bitmap of the slots in its neighborhood
+ * that hold its keys. get() only looks at the slots whose bits are set, so a
+ * lookup compares at most NEIGHBORHOOD stored hashes, and a miss usually
+ * looks at none. Most keys sit within a few slots of home, so a hit nearly
+ * always reads one cache line of the hash array, or two.
+ *
+ * put() probes linearly for a free slot. If that slot is too far from home,
+ * an entry between home and the free slot that may move there without
+ * leaving its own neighborhood does so, and the free slot hops closer, until
+ * it is inside the neighborhood. Because entries can always be rearranged
+ * like this, the table can run at load factors well above 0.9. If no entry
+ * can move, the table doubles. With 32-slot neighborhoods that happened at a
+ * load of about 0.83 for a million keys; with 64 it happens at about 0.94.
+ *
+ * More than NEIGHBORHOOD keys with the same home can never fit, however large
+ * the table. When a table that is less than half full runs out of room, the
+ * key goes to an overflow stash instead (as in CuckooHash2K), which get()
+ * only scans when it is not empty.
+ */
+public class HopscotchHash2K<K, V> implements HashTable<K, V> {
+	private static final int NEIGHBORHOOD = 64; // Bits in a long.
+	private static final int INITIAL_CAPACITY = 4; // Must be a power of two.
+	private static final double MAX_LOAD_FACTOR = 0.95;
+	// How far put() probes for a free slot before giving up.
+	private static final int MAX_PROBE = 65536;
+	private static final int STASH_SIZE = 4;
+
+	private Object[] keys;
+	private Object[] values;
+	private int[] hashes;
+	// Bit i of hops[h] is set if slot h + i holds a key whose home is h.
+	private long[] hops;
+	private int[] stashHashes;
+	private Object[] stashKeys;
+	private Object[] stashValues;
+	private int stashSize;
+	private int size;
+
+	public HopscotchHash2K() {
+		this(0);
+	}
+
+	public HopscotchHash2K(int expectedSize) {
+		allocate(HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY));
+		this.size = 0;
+	}
+
+	private void allocate(int capacity) {
+		this.keys = new Object[capacity];
+		this.values = new Object[capacity];
+		this.hashes = new int[capacity];
+		this.hops = new long[capacity];
+		this.stashHashes = new int[STASH_SIZE];
+		this.stashKeys = new Object[STASH_SIZE];
+		this.stashValues = new Object[STASH_SIZE];
+		this.stashSize = 0;
+	}
+
+	private int indexOf(Object key, int hash) {
+		int mask = this.keys.length - 1;
+		int home = hash & mask;
+		long hop = this.hops[home];
+		while (hop != 0) {
+			int idx = home + Long.numberOfTrailingZeros(hop) & mask;
+			if (this.hashes[idx] == hash && this.keys[idx].equals(key)) {
+				return idx;
+			}
+			hop &= hop - 1;
+		}
+		return -1;
+	}
+
+	private int stashIndexOf(Object key, int hash) {
+		for (int i = 0; i < this.stashSize; i++) {
+			if (this.stashHashes[i] == hash && this.stashKeys[i].equals(key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(K key) {
+		int hash = HashUtils.mix(key.hashCode());
+		int idx = indexOf(key, hash);
+		if (idx >= 0) {
+			return (V) this.values[idx];
+		}
+		if (this.stashSize > 0) {
+			idx = stashIndexOf(key, hash);
+			if (idx >= 0) {
+				return (V) this.stashValues[idx];
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void put(K key, V value) {
+		int hash = HashUtils.mix(key.hashCode());
+		int idx = indexOf(key, hash);
+		if (idx >= 0) {
+			this.values[idx] = value;
+			return;
+		}
+		if (this.stashSize > 0) {
+			idx = stashIndexOf(key, hash);
+			if (idx >= 0) {
+				this.stashValues[idx] = value;
+				return;
+			}
+		}
+		insert(key, value, hash);
+		this.size++;
+		if (this.keys.length * MAX_LOAD_FACTOR < this.size) {
+			rehash(this.keys.length * 2);
+		}
+	}
+
+	// Inserts a key known not to be in the table. Does not touch size.
+	private void insert(Object key, Object value, int hash) {
+		while (!tryInsert(key, value, hash)) {
+			if (this.size * 2 <= this.keys.length) {
+				stash(key, value, hash);
+				return;
+			}
+			rehash(this.keys.length * 2);
+		}
+	}
+
+	// Places the entry within the neighborhood of its home slot, or returns
+	// false if neither probing nor hopping finds room for it.
+	private boolean tryInsert(Object key, Object value, int hash) {
+		int mask = this.keys.length - 1;
+		int home = hash & mask;
+		int free = home;
+		int dist = 0;
+		int maxProbe = Math.min(MAX_PROBE, this.keys.length);
+		while (this.keys[free] != null) {
+			if (++dist == maxProbe) {
+				return false;
+			}
+			free = free + 1 & mask;
+		}
+		while (dist >= NEIGHBORHOOD) {
+			// Look for an entry in the NEIGHBORHOOD - 1 slots before free whose
+			// home is close enough to free that it can move there.
+			int moved = -1;
+			for (int back = NEIGHBORHOOD - 1; back > 0 && moved < 0; back--) {
+				int h = free - back & mask;
+				long hop = this.hops[h];
+				if (hop != 0) {
+					int offset = Long.numberOfTrailingZeros(hop);
+					if (offset < back) {
+						moved = h + offset & mask;
+						this.keys[free] = this.keys[moved];
+						this.values[free] = this.values[moved];
+						this.hashes[free] = this.hashes[moved];
+						// Each hop leaves the table consistent on its own, so that a
+						// later hop that fails strands no copy of the entry.
+						this.keys[moved] = null;
+						this.values[moved] = null;
+						this.hops[h] = hop & ~(1L << offset) | 1L << back;
+						dist -= back - offset;
+					}
+				}
+			}
+			if (moved < 0) {
+				return false;
+			}
+			free = moved;
+		}
+		this.keys[free] = key;
+		this.values[free] = value;
+		this.hashes[free] = hash;
+		this.hops[home] |= 1L << dist;
+		return true;
+	}
+
+	private void stash(Object key, Object value, int hash) {
+		if (this.stashSize == this.stashKeys.length) {
+			int length = this.stashKeys.length * 2;
+			this.stashHashes = Arrays.copyOf(this.stashHashes, length);
+			this.stashKeys = Arrays.copyOf(this.stashKeys, length);
+			this.stashValues = Arrays.copyOf(this.stashValues, length);
+		}
+		this.stashHashes[this.stashSize] = hash;
+		this.stashKeys[this.stashSize] = key;
+		this.stashValues[this.stashSize] = value;
+		this.stashSize++;
+	}
+
+	// Moves every entry, stash included, into new arrays of the given capacity
+	// with insert(), which compares no keys and reuses the stored hashes. An
+	// insert() that finds no room may rehash again; the old arrays are only read
+	// through the local copies.
+	private void rehash(int capacity) {
+		Object[] oldKeys = this.keys;
+		Object[] oldValues = this.values;
+		int[] oldHashes = this.hashes;
+		int[] oldStashHashes = this.stashHashes;
+		Object[] oldStashKeys = this.stashKeys;
+		Object[] oldStashValues = this.stashValues;
+		int oldStashSize = this.stashSize;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				insert(oldKeys[i], oldValues[i], oldHashes[i]);
+			}
+		}
+		for (int i = 0; i < oldStashSize; i++) {
+			insert(oldStashKeys[i], oldStashValues[i], oldStashHashes[i]);
+		}
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		HashUtils.ensurePowerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.keys.length,
+				this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		HashUtils.trimPowerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.keys.length, this::rehash);
+	}
+
+	// For tests.
+	int capacity() {
+		return this.keys.length;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
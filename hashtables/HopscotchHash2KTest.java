@@ -0,0 +1,71 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class HopscotchHash2KTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return HopscotchHash2K::new;
+	}
+
+	@Test
+	/*
+	 * A presized table filled right up to its maximum load factor must not grow
+	 * and must still find every key, which means the hops kept all keys inside
+	 * their neighborhoods.
+	 */
+	void testHighLoad() {
+		int keys = (int) (0.95 * (1 << 16));
+		HopscotchHash2K<Integer, Integer> h = new HopscotchHash2K<>(keys);
+		for (int k = 0; k < keys; k++) {
+			h.put(k * 7919, k);
+		}
+		assertEquals(keys, h.size());
+		assertEquals(1 << 16, h.capacity());
+		for (int k = 0; k < keys; k++) {
+			assertEquals(k, h.get(k * 7919));
+		}
+		assertNull(h.get(-1));
+	}
+
+	@Test
+	/*
+	 * Puts keys with few distinct hash codes, so that homes overflow and hops
+	 * fail, and resizes in between. The table must always agree with a HashMap,
+	 * which it does not if a failed hop leaves a stale copy of an entry that a
+	 * rehash then brings back.
+	 */
+	void testFailedHopsAgainstHashMap() {
+		for (int run = 0; run < 300; run++) {
+			SplittableRandom rng = new SplittableRandom(run);
+			int mask = (1 << rng.nextInt(1, 9)) - 1;
+			HopscotchHash2K<CollidingKey, Integer> h = new HopscotchHash2K<>();
+			Map<Integer, Integer> expected = new HashMap<>();
+			for (int op = 0; op < 2000; op++) {
+				int k = rng.nextInt(1000);
+				int r = rng.nextInt(100);
+				if (r < 2) {
+					h.trimToSize();
+				} else if (r < 4) {
+					h.ensureCapacity(rng.nextInt(4000));
+				} else {
+					h.put(new CollidingKey(k, mask), op);
+					expected.put(k, op);
+				}
+				assertEquals(expected.get(k), h.get(new CollidingKey(k, mask)));
+			}
+			assertEquals(expected.size(), h.size());
+			for (int k = 0; k < 1000; k++) {
+				assertEquals(expected.get(k), h.get(new CollidingKey(k, mask)));
+			}
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package hashtables;
+
+/*
+ * Open addressing with linear probing, specialized for int keys and values.
+ *
+ * Keys and values are kept in two flat int arrays, so a put neither boxes nor
+ * allocates (except when growing) and a probe only touches the key array.
+ * The key 0 marks an empty slot; a real 0 key is kept on the side in
+ * zeroValue/hasZeroKey.
+ */
+public class IntIntOpenAddressingHash2K implements HashTable<Integer, Integer> {
+	private static final int EMPTY = 0;
+	private static final int INITIAL_CAPACITY = 4; // Must be a power of two.
+	private static final double MAX_LOAD_FACTOR = 0.75;
+
+	private int[] keys;
+	private int[] values;
+	private boolean hasZeroKey;
+	private int zeroValue;
+	private int size;
+
+	public IntIntOpenAddressingHash2K() {
+		this(0);
+	}
+
+	public IntIntOpenAddressingHash2K(int expectedSize) {
+		int capacity = HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY);
+		this.keys = new int[capacity];
+		this.values = new int[capacity];
+		this.size = 0;
+	}
+
+	private void growTable() {
+		rehash(this.keys.length * 2);
+	}
+
+	// The zero key lives outside the arrays and is not moved.
+	private void rehash(int capacity) {
+		int[] newKeys = new int[capacity];
+		int[] newValues = new int[capacity];
+		for (int i = 0; i < this.keys.length; i++) {
+			if (this.keys[i] != EMPTY) {
+				int hash = HashUtils.mix(this.keys[i]) & capacity - 1;
+				while (newKeys[hash] != EMPTY) {
+					hash = hash + 1 & capacity - 1;
+				}
+				newKeys[hash] = this.keys[i];
+				newValues[hash] = this.values[i];
+			}
+		}
+		this.keys = newKeys;
+		this.values = newValues;
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		HashUtils.ensurePowerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.keys.length,
+				this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		HashUtils.trimPowerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.keys.length, this::rehash);
+	}
+
+	public void put(int key, int value) {
+		if (key == EMPTY) {
+			if (!this.hasZeroKey) {
+				this.hasZeroKey = true;
+				this.size++;
+			}
+			this.zeroValue = value;
+			return;
+		}
+		int hash = HashUtils.mix(key) & this.keys.length - 1;
+		while (this.keys[hash] != EMPTY) {
+			if (this.keys[hash] == key) {
+				this.values[hash] = value;
+				return;
+			}
+			hash = hash + 1 & this.keys.length - 1;
+		}
+		this.keys[hash] = key;
+		this.values[hash] = value;
+		this.size++;
+		if (loadFactorTooHigh()) {
+			growTable();
+		}
+	}
+
+	public boolean containsKey(int key) {
+		return indexOf(key) >= 0 || key == EMPTY && this.hasZeroKey;
+	}
+
+	public int getOrDefault(int key, int defaultValue) {
+		if (key == EMPTY) {
+			return this.hasZeroKey ? this.zeroValue : defaultValue;
+		}
+		int idx = indexOf(key);
+		return idx >= 0 ? this.values[idx] : defaultValue;
+	}
+
+	// Returns the slot holding key, or -1. Never finds the EMPTY key.
+	private int indexOf(int key) {
+		if (key == EMPTY) {
+			return -1;
+		}
+		int hash = HashUtils.mix(key) & this.keys.length - 1;
+		while (this.keys[hash] != EMPTY) {
+			if (this.keys[hash] == key) {
+				return hash;
+			}
+			hash = hash + 1 & this.keys.length - 1;
+		}
+		return -1;
+	}
+
+	@Override
+	public void put(Integer key, Integer value) {
+		put(key.intValue(), value.intValue());
+	}
+
+	@Override
+	public Integer get(Integer key) {
+		int k = key.intValue();
+		if (k == EMPTY) {
+			return this.hasZeroKey ? Integer.valueOf(this.zeroValue) : null;
+		}
+		int idx = indexOf(k);
+		return idx >= 0 ? Integer.valueOf(this.values[idx]) : null;
+	}
+
+	private boolean loadFactorTooHigh() {
+		return this.keys.length * MAX_LOAD_FACTOR < this.size;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
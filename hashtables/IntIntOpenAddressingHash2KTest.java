@@ -0,0 +1,42 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class IntIntOpenAddressingHash2KTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		// Only ever used with Integer keys and values by HashTableTest.
+		return new HashTableFactory() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public <K, V> HashTable<K, V> newInstance() {
+				return (HashTable<K, V>) new IntIntOpenAddressingHash2K();
+			}
+		};
+	}
+
+	@Test
+	/*
+	 * 0 is the empty-slot sentinel, so it has to be stored on the side.
+	 */
+	void testZeroKey() {
+		IntIntOpenAddressingHash2K h = new IntIntOpenAddressingHash2K();
+		assertFalse(h.containsKey(0));
+		assertNull(h.get(Integer.valueOf(0)));
+		assertEquals(-1, h.getOrDefault(0, -1));
+		h.put(0, 17);
+		h.put(0, 18);
+		h.put(1, 19);
+		assertTrue(h.containsKey(0));
+		assertEquals(18, h.getOrDefault(0, -1));
+		assertEquals(19, h.getOrDefault(1, -1));
+		assertEquals(-1, h.getOrDefault(2, -1));
+		assertEquals(2, h.size());
+	}
+}
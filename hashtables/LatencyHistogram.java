@@ -0,0 +1,74 @@
+package hashtables;
+
+/*
+ * A log-bucketed histogram of non-negative values (typically nanoseconds).
+ *
+ * Every power of two is split into 2^SUB_BUCKET_BITS linear sub-buckets, so a
+ * recorded value is known within 1/2^SUB_BUCKET_BITS of its magnitude, and the
+ * whole long range fits in a few hundred counters. All storage is allocated
+ * up front, so record() does not allocate.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private final long[] counts = new long[(Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+	private long total;
+	private long max;
+
+	public void record(long value) {
+		this.counts[bucketOf(value)]++;
+		this.total++;
+		if (value > this.max) {
+			this.max = value;
+		}
+	}
+
+	static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			// The first buckets are exact. Negative values (a clock going
+			// backwards) end up in bucket 0.
+			return (int) Math.max(value, 0);
+		}
+		int exp = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> exp - SUB_BUCKET_BITS) & SUB_BUCKETS - 1;
+		return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	// The largest value that maps to bucket.
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	/*
+	 * Returns an upper bound of the value below which percentile percent of the
+	 * recorded values fall, e.g. percentile(99.9). Never larger than max().
+	 */
+	public long percentile(double percentile) {
+		if (this.total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.total));
+		long seen = 0;
+		for (int i = 0; i < this.counts.length; i++) {
+			seen += this.counts[i];
+			if (seen >= rank) {
+				return Math.min(upperBound(i), this.max);
+			}
+		}
+		return this.max;
+	}
+
+	public long max() {
+		return this.max;
+	}
+
+	public long count() {
+		return this.total;
+	}
+}
@@ -0,0 +1,50 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+	@Test
+	/*
+	 * Every value must map to a bucket whose upper bound is at least the value
+	 * and at most 1/8 larger.
+	 */
+	void testBuckets() {
+		SplittableRandom rng = new SplittableRandom(1);
+		for (int i = 0; i < 100000; i++) {
+			long v = rng.nextLong(1L << rng.nextInt(1, 63));
+			long upper = LatencyHistogram.upperBound(LatencyHistogram.bucketOf(v));
+			assertTrue(upper >= v);
+			assertTrue(upper - v <= v / 8);
+		}
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+	}
+
+	@Test
+	/*
+	 * Percentiles must be within the bucket precision of the exact percentiles.
+	 */
+	void testPercentiles() {
+		SplittableRandom rng = new SplittableRandom(2);
+		LatencyHistogram h = new LatencyHistogram();
+		long[] values = new long[10000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = rng.nextLong(1000000);
+			h.record(values[i]);
+		}
+		Arrays.sort(values);
+		for (double p : new double[] { 50, 90, 99, 99.9, 100 }) {
+			long exact = values[(int) Math.ceil(p / 100 * values.length) - 1];
+			long estimate = h.percentile(p);
+			assertTrue(estimate >= exact && estimate - exact <= exact / 8, p + ": " + estimate + " vs " + exact);
+		}
+		assertEquals(values[values.length - 1], h.max());
+		assertEquals(values.length, h.count());
+	}
+}
@@ -0,0 +1,156 @@
+package hashtables;
+
+/*
+ * Open addressing with linear probing, specialized for long keys and values.
+ *
+ * Keys and values are kept in two flat long arrays, so a put neither boxes nor
+ * allocates (except when growing) and a probe only touches the key array.
+ * The key 0 marks an empty slot; a real 0 key is kept on the side in
+ * zeroValue/hasZeroKey.
+ */
+public class LongLongOpenAddressingHash2K implements HashTable<Long, Long> {
+	private static final long EMPTY = 0;
+	private static final int INITIAL_CAPACITY = 4; // Must be a power of two.
+	private static final double MAX_LOAD_FACTOR = 0.75;
+
+	private long[] keys;
+	private long[] values;
+	private boolean hasZeroKey;
+	private long zeroValue;
+	private int size;
+
+	public LongLongOpenAddressingHash2K() {
+		this(0);
+	}
+
+	public LongLongOpenAddressingHash2K(int expectedSize) {
+		int capacity = HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY);
+		this.keys = new long[capacity];
+		this.values = new long[capacity];
+		this.size = 0;
+	}
+
+	private void growTable() {
+		rehash(this.keys.length * 2);
+	}
+
+	// The zero key lives outside the arrays and is not moved.
+	private void rehash(int capacity) {
+		long[] newKeys = new long[capacity];
+		long[] newValues = new long[capacity];
+		for (int i = 0; i < this.keys.length; i++) {
+			if (this.keys[i] != EMPTY) {
+				int hash = (int) HashUtils.mix(this.keys[i]) & capacity - 1;
+				while (newKeys[hash] != EMPTY) {
+					hash = hash + 1 & capacity - 1;
+				}
+				newKeys[hash] = this.keys[i];
+				newValues[hash] = this.values[i];
+			}
+		}
+		this.keys = newKeys;
+		this.values = newValues;
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		HashUtils.ensurePowerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.keys.length,
+				this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		HashUtils.trimPowerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.keys.length, this::rehash);
+	}
+
+	public void put(long key, long value) {
+		if (key == EMPTY) {
+			if (!this.hasZeroKey) {
+				this.hasZeroKey = true;
+				this.size++;
+			}
+			this.zeroValue = value;
+			return;
+		}
+		int hash = (int) HashUtils.mix(key) & this.keys.length - 1;
+		while (this.keys[hash] != EMPTY) {
+			if (this.keys[hash] == key) {
+				this.values[hash] = value;
+				return;
+			}
+			hash = hash + 1 & this.keys.length - 1;
+		}
+		this.keys[hash] = key;
+		this.values[hash] = value;
+		this.size++;
+		if (loadFactorTooHigh()) {
+			growTable();
+		}
+	}
+
+	public boolean containsKey(long key) {
+		return indexOf(key) >= 0 || key == EMPTY && this.hasZeroKey;
+	}
+
+	public long getOrDefault(long key, long defaultValue) {
+		if (key == EMPTY) {
+			return this.hasZeroKey ? this.zeroValue : defaultValue;
+		}
+		int idx = indexOf(key);
+		return idx >= 0 ? this.values[idx] : defaultValue;
+	}
+
+	// Returns the slot holding key, or -1. Never finds the EMPTY key.
+	private int indexOf(long key) {
+		if (key == EMPTY) {
+			return -1;
+		}
+		int hash = (int) HashUtils.mix(key) & this.keys.length - 1;
+		while (this.keys[hash] != EMPTY) {
+			if (this.keys[hash] == key) {
+				return hash;
+			}
+			hash = hash + 1 & this.keys.length - 1;
+		}
+		return -1;
+	}
+
+	@Override
+	public void put(Long key, Long value) {
+		put(key.longValue(), value.longValue());
+	}
+
+	@Override
+	public Long get(Long key) {
+		long k = key.longValue();
+		if (k == EMPTY) {
+			return this.hasZeroKey ? Long.valueOf(this.zeroValue) : null;
+		}
+		int idx = indexOf(k);
+		return idx >= 0 ? Long.valueOf(this.values[idx]) : null;
+	}
+
+	// The slot layout, for Snapshots.save().
+
+	int capacity() {
+		return this.keys.length;
+	}
+
+	long keyAt(int slot) {
+		return this.keys[slot];
+	}
+
+	long valueAt(int slot) {
+		return this.values[slot];
+	}
+
+	private boolean loadFactorTooHigh() {
+		return this.keys.length * MAX_LOAD_FACTOR < this.size;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
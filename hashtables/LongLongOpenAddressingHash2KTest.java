@@ -0,0 +1,56 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class LongLongOpenAddressingHash2KTest {
+
+	@Test
+	/*
+	 * Inserts keys, some of them duplicates, and checks size and values against
+	 * a HashMap.
+	 */
+	void testPutGet() {
+		SplittableRandom rng = new SplittableRandom(1);
+		for (int i = 10; i <= 100000; i *= 10) {
+			LongLongOpenAddressingHash2K h = new LongLongOpenAddressingHash2K();
+			Map<Long, Long> expected = new HashMap<>();
+			for (int j = 0; j < i; j++) {
+				// Keys far apart in the upper bits as well as duplicates.
+				long k = rng.nextLong(i / 2) << 33 ^ rng.nextLong(2);
+				long v = rng.nextLong();
+				h.put(k, v);
+				expected.put(k, v);
+			}
+			assertEquals(expected.size(), h.size());
+			for (Map.Entry<Long, Long> e : expected.entrySet()) {
+				assertEquals(e.getValue(), h.get(e.getKey()));
+				assertEquals(e.getValue().longValue(), h.getOrDefault(e.getKey().longValue(), -1));
+			}
+			assertFalse(h.containsKey(-42));
+		}
+	}
+
+	@Test
+	/*
+	 * 0 is the empty-slot sentinel, so it has to be stored on the side.
+	 */
+	void testZeroKey() {
+		LongLongOpenAddressingHash2K h = new LongLongOpenAddressingHash2K();
+		assertFalse(h.containsKey(0));
+		assertNull(h.get(Long.valueOf(0)));
+		h.put(0L, 17L);
+		h.put(0L, 18L);
+		assertTrue(h.containsKey(0));
+		assertEquals(18, h.getOrDefault(0, -1));
+		assertEquals(1, h.size());
+	}
+}
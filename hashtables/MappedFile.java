@@ -0,0 +1,64 @@
+package hashtables;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * A whole file mapped read-only into memory, addressed by long file
+ * positions. One mapping cannot exceed 2 GB, so the file is mapped in regions
+ * of REGION_BYTES; whoever writes the file makes sure that no value read with
+ * a single call, and no record read through region(), crosses a region
+ * boundary.
+ */
+final class MappedFile {
+	static final int REGION_SHIFT = 30;
+	static final long REGION_BYTES = 1L << REGION_SHIFT;
+
+	private final ByteBuffer[] regions;
+	private final long length;
+
+	MappedFile(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			this.length = channel.size();
+			this.regions = new ByteBuffer[(int) ((this.length + REGION_BYTES - 1) >>> REGION_SHIFT)];
+			for (int i = 0; i < this.regions.length; i++) {
+				long start = (long) i << REGION_SHIFT;
+				// The mapping stays valid after the channel is closed.
+				this.regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+						Math.min(REGION_BYTES, this.length - start)).order(ByteOrder.LITTLE_ENDIAN);
+			}
+		}
+	}
+
+	long length() {
+		return this.length;
+	}
+
+	// The region holding pos; index it with offset(pos).
+	ByteBuffer region(long pos) {
+		return this.regions[(int) (pos >>> REGION_SHIFT)];
+	}
+
+	static int offset(long pos) {
+		return (int) (pos & REGION_BYTES - 1);
+	}
+
+	long getLong(long pos) {
+		return region(pos).getLong(offset(pos));
+	}
+
+	int getInt(long pos) {
+		return region(pos).getInt(offset(pos));
+	}
+
+	// Unmaps the file. Reading it afterwards crashes the JVM; see DirectBuffers.
+	void unmap() {
+		for (ByteBuffer region : this.regions) {
+			DirectBuffers.free(region);
+		}
+	}
+}
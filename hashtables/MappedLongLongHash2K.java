@@ -0,0 +1,105 @@
+package hashtables;
+
+/*
+ * A LongLongOpenAddressingHash2K loaded by Snapshots.loadLongLong(): get()
+ * probes the slots in the mapped file exactly as the saved table probed its
+ * arrays. Read-only; put() throws UnsupportedOperationException.
+ *
+ * close() unmaps the file right away. It must not race with lookups in other
+ * threads, which would then read unmapped memory.
+ */
+public class MappedLongLongHash2K implements HashTable<Long, Long>, AutoCloseable {
+	private static final long EMPTY = 0;
+
+	private MappedFile file;
+	private final int mask;
+	private final int size;
+	private final boolean hasZeroKey;
+	private final long zeroValue;
+
+	MappedLongLongHash2K(MappedFile file) {
+		this.file = file;
+		this.mask = file.getInt(Snapshots.CAPACITY) - 1;
+		this.size = file.getInt(Snapshots.SIZE);
+		this.hasZeroKey = file.getInt(Snapshots.HAS_ZERO_KEY) != 0;
+		this.zeroValue = file.getLong(Snapshots.ZERO_VALUE);
+	}
+
+	private MappedFile file() {
+		if (this.file == null) {
+			throw new IllegalStateException("Table has been closed");
+		}
+		return this.file;
+	}
+
+	private static long slot(int idx) {
+		return Snapshots.HEADER_BYTES + (long) idx * Snapshots.SLOT_BYTES;
+	}
+
+	// Returns the file position of the slot holding key, or -1. Never finds the
+	// EMPTY key.
+	private long indexOf(long key) {
+		MappedFile f = file();
+		int idx = (int) HashUtils.mix(key) & this.mask;
+		long k;
+		while ((k = f.getLong(slot(idx))) != EMPTY) {
+			if (k == key) {
+				return slot(idx);
+			}
+			idx = idx + 1 & this.mask;
+		}
+		return -1;
+	}
+
+	public boolean containsKey(long key) {
+		if (key == EMPTY) {
+			file();
+			return this.hasZeroKey;
+		}
+		return indexOf(key) >= 0;
+	}
+
+	public long getOrDefault(long key, long defaultValue) {
+		if (key == EMPTY) {
+			file();
+			return this.hasZeroKey ? this.zeroValue : defaultValue;
+		}
+		long pos = indexOf(key);
+		return pos >= 0 ? this.file.getLong(pos + Long.BYTES) : defaultValue;
+	}
+
+	@Override
+	public void put(Long key, Long value) {
+		throw new UnsupportedOperationException("Snapshots are read-only");
+	}
+
+	@Override
+	public Long get(Long key) {
+		long k = key.longValue();
+		if (k == EMPTY) {
+			file();
+			return this.hasZeroKey ? Long.valueOf(this.zeroValue) : null;
+		}
+		long pos = indexOf(k);
+		return pos >= 0 ? Long.valueOf(this.file.getLong(pos + Long.BYTES)) : null;
+	}
+
+	/*
+	 * Unmaps the file. The table cannot be used afterwards; closing it again
+	 * does nothing.
+	 */
+	@Override
+	public void close() {
+		if (this.file != null) {
+			MappedFile f = this.file;
+			this.file = null;
+			f.unmap();
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
@@ -0,0 +1,124 @@
+package hashtables;
+
+import java.nio.ByteBuffer;
+
+/*
+ * An OpenAddressingHash2K<String, String> loaded by Snapshots.loadString():
+ * get() follows the saved table's probe sequence through the mapped slots,
+ * compares the stored hash and length first, and only then the chars of the
+ * key, without building a String for it. Only a hit allocates, for the value.
+ * Read-only; put() throws UnsupportedOperationException.
+ *
+ * close() unmaps the file right away. It must not race with lookups in other
+ * threads, which would then read unmapped memory.
+ */
+public class MappedStringHash2K implements HashTable<String, String>, AutoCloseable {
+	private static final long EMPTY = 0;
+
+	private MappedFile file;
+	private final int mask;
+	private final int size;
+	private final ProbeStrategy probeStrategy;
+	private final int stepIncrement;
+
+	MappedStringHash2K(MappedFile file) {
+		this.file = file;
+		this.mask = file.getInt(Snapshots.CAPACITY) - 1;
+		this.size = file.getInt(Snapshots.SIZE);
+		this.probeStrategy = ProbeStrategy.values()[file.getInt(Snapshots.PROBE_STRATEGY)];
+		this.stepIncrement = this.probeStrategy.stepIncrement;
+	}
+
+	private MappedFile file() {
+		if (this.file == null) {
+			throw new IllegalStateException("Table has been closed");
+		}
+		return this.file;
+	}
+
+	private static long slot(int idx) {
+		return Snapshots.HEADER_BYTES + (long) idx * Snapshots.SLOT_BYTES;
+	}
+
+	// As in OpenAddressingHash2K.
+	private int firstStep(int hash) {
+		return this.probeStrategy == ProbeStrategy.DOUBLE_HASHING ? hash >>> 16 | 1 : 1;
+	}
+
+	// Returns the file position of the record of key, or -1.
+	private long find(String key) {
+		MappedFile f = file();
+		int hash = HashUtils.mix(key.hashCode());
+		int idx = hash & this.mask;
+		int step = firstStep(hash);
+		long record;
+		while ((record = f.getLong(slot(idx))) != EMPTY) {
+			if (f.getInt(slot(idx) + 8) == hash && f.getInt(slot(idx) + 12) == key.length()
+					&& keyEquals(f, record, key)) {
+				return record;
+			}
+			idx = idx + step & this.mask;
+			step += this.stepIncrement;
+		}
+		return -1;
+	}
+
+	private static boolean keyEquals(MappedFile f, long record, String key) {
+		ByteBuffer region = f.region(record);
+		int offset = MappedFile.offset(record);
+		for (int i = 0; i < key.length(); i++) {
+			if (region.getChar(offset + 2 * i) != key.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void put(String key, String value) {
+		throw new UnsupportedOperationException("Snapshots are read-only");
+	}
+
+	@Override
+	public String get(String key) {
+		long record = find(key);
+		if (record < 0) {
+			return null;
+		}
+		ByteBuffer region = this.file.region(record);
+		int offset = MappedFile.offset(record) + 2 * key.length();
+		int length = region.getInt(offset);
+		if (length < 0) {
+			return null;
+		}
+		offset += Integer.BYTES;
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = region.getChar(offset + 2 * i);
+		}
+		return new String(chars);
+	}
+
+	public boolean containsKey(String key) {
+		return find(key) >= 0;
+	}
+
+	/*
+	 * Unmaps the file. The table cannot be used afterwards; closing it again
+	 * does nothing.
+	 */
+	@Override
+	public void close() {
+		if (this.file != null) {
+			MappedFile f = this.file;
+			this.file = null;
+			f.unmap();
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
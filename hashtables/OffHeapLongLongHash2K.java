@@ -0,0 +1,323 @@
+package hashtables;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ * LongLongOpenAddressingHash2K with its slots outside the Java heap, for tables
+ * of tens of millions of entries: the garbage collector neither copies nor
+ * scans them, so they add nothing to GC pauses and need no heap headroom.
+ *
+ * Every slot is 16 bytes, the key followed by its value, in direct
+ * ByteBuffers. A buffer cannot hold more than 2 GB, so large tables are split
+ * into chunks of CHUNK_SLOTS slots. As on the heap, the key 0 marks an empty
+ * slot and a real 0 key is kept on the side.
+ *
+ * The memory is only returned when close() is called (see DirectBuffers), or,
+ * failing that, when the buffers are garbage collected, which may take
+ * arbitrarily long. Growing works as in OpenAddressingHash2K, all at once or
+ * incrementally; either way the old buffers are freed as soon as they have
+ * been drained.
+ *
+ * (java.lang.foreign.MemorySegment would be the modern API for this, but it is
+ * still an incubator module in Java 17.)
+ */
+public class OffHeapLongLongHash2K implements HashTable<Long, Long>, AutoCloseable {
+	private static final long EMPTY = 0;
+	private static final int INITIAL_CAPACITY = 4; // Must be a power of two.
+	private static final double MAX_LOAD_FACTOR = 0.75;
+	private static final int SLOT_BYTES = 16;
+	private static final int CHUNK_SHIFT = 22;
+	// 64 MB per chunk.
+	private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+	// See OpenAddressingHash2K.
+	private static final int MIGRATION_STEP = 16;
+
+	// The slots of one generation of the table.
+	private static final class Slots {
+		final ByteBuffer[] chunks;
+		final int capacity;
+
+		Slots(int capacity) {
+			this.capacity = capacity;
+			int slotsPerChunk = Math.min(capacity, CHUNK_SLOTS);
+			this.chunks = new ByteBuffer[capacity / slotsPerChunk];
+			for (int i = 0; i < this.chunks.length; i++) {
+				// allocateDirect zeroes the memory, so every slot starts EMPTY.
+				this.chunks[i] = ByteBuffer.allocateDirect(slotsPerChunk * SLOT_BYTES).order(ByteOrder.nativeOrder());
+			}
+		}
+
+		long key(int slot) {
+			return this.chunks[slot >>> CHUNK_SHIFT].getLong((slot & CHUNK_SLOTS - 1) * SLOT_BYTES);
+		}
+
+		long value(int slot) {
+			return this.chunks[slot >>> CHUNK_SHIFT].getLong((slot & CHUNK_SLOTS - 1) * SLOT_BYTES + Long.BYTES);
+		}
+
+		void set(int slot, long key, long value) {
+			ByteBuffer chunk = this.chunks[slot >>> CHUNK_SHIFT];
+			int offset = (slot & CHUNK_SLOTS - 1) * SLOT_BYTES;
+			chunk.putLong(offset, key);
+			chunk.putLong(offset + Long.BYTES, value);
+		}
+
+		void setValue(int slot, long value) {
+			this.chunks[slot >>> CHUNK_SHIFT].putLong((slot & CHUNK_SLOTS - 1) * SLOT_BYTES + Long.BYTES, value);
+		}
+
+		// Returns the slot holding key, or -1. Never finds the EMPTY key.
+		int indexOf(long key) {
+			int mask = this.capacity - 1;
+			int idx = (int) HashUtils.mix(key) & mask;
+			long k;
+			while ((k = key(idx)) != EMPTY) {
+				if (k == key) {
+					return idx;
+				}
+				idx = idx + 1 & mask;
+			}
+			return -1;
+		}
+
+		// Returns the slot holding key, or the empty slot where it belongs.
+		int slotFor(long key) {
+			int mask = this.capacity - 1;
+			int idx = (int) HashUtils.mix(key) & mask;
+			long k;
+			while ((k = key(idx)) != EMPTY && k != key) {
+				idx = idx + 1 & mask;
+			}
+			return idx;
+		}
+
+		void free() {
+			for (ByteBuffer chunk : this.chunks) {
+				DirectBuffers.free(chunk);
+			}
+		}
+	}
+
+	private Slots slots;
+	private boolean hasZeroKey;
+	private long zeroValue;
+	private int size;
+
+	private final ResizeMode resizeMode;
+	// While an incremental resize is in progress, the previous generation and
+	// the number of its slots that have been moved into slots.
+	private Slots oldSlots;
+	private int migrated;
+
+	public OffHeapLongLongHash2K() {
+		this(0, ResizeMode.ALL_AT_ONCE);
+	}
+
+	public OffHeapLongLongHash2K(ResizeMode resizeMode) {
+		this(0, resizeMode);
+	}
+
+	public OffHeapLongLongHash2K(int expectedSize) {
+		this(expectedSize, ResizeMode.ALL_AT_ONCE);
+	}
+
+	public OffHeapLongLongHash2K(int expectedSize, ResizeMode resizeMode) {
+		this.slots = new Slots(HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY));
+		this.size = 0;
+		this.resizeMode = resizeMode;
+	}
+
+	private Slots slots() {
+		if (this.slots == null) {
+			throw new IllegalStateException("Table has been closed");
+		}
+		return this.slots;
+	}
+
+	private void growTable() {
+		if (this.resizeMode == ResizeMode.INCREMENTAL) {
+			finishMigration();
+			this.oldSlots = this.slots;
+			this.migrated = 0;
+			this.slots = new Slots(this.oldSlots.capacity * 2);
+			return;
+		}
+		rehash(this.slots.capacity * 2);
+	}
+
+	// Frees the old chunks once every entry has moved; the zero key stays on
+	// the side.
+	private void rehash(int capacity) {
+		Slots old = slots();
+		Slots s = new Slots(capacity);
+		int mask = capacity - 1;
+		for (int i = 0; i < old.capacity; i++) {
+			long k = old.key(i);
+			if (k != EMPTY) {
+				int idx = (int) HashUtils.mix(k) & mask;
+				while (s.key(idx) != EMPTY) {
+					idx = idx + 1 & mask;
+				}
+				s.set(idx, k, old.value(i));
+			}
+		}
+		this.slots = s;
+		old.free();
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		finishMigration();
+		HashUtils.ensurePowerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, slots().capacity,
+				this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		finishMigration();
+		HashUtils.trimPowerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, slots().capacity, this::rehash);
+	}
+
+	private void finishMigration() {
+		while (this.oldSlots != null) {
+			migrateStep();
+		}
+	}
+
+	// Moves the next MIGRATION_STEP slots of oldSlots, which stay in place, as in
+	// OpenAddressingHash2K.
+	private void migrateStep() {
+		int end = Math.min(this.migrated + MIGRATION_STEP, this.oldSlots.capacity);
+		for (int i = this.migrated; i < end; i++) {
+			long k = this.oldSlots.key(i);
+			if (k != EMPTY) {
+				int idx = this.slots.slotFor(k);
+				// If the key has been put since the resize began, that value wins.
+				if (this.slots.key(idx) == EMPTY) {
+					this.slots.set(idx, k, this.oldSlots.value(i));
+				}
+			}
+		}
+		this.migrated = end;
+		if (end == this.oldSlots.capacity) {
+			this.oldSlots.free();
+			this.oldSlots = null;
+		}
+	}
+
+	public void put(long key, long value) {
+		Slots s = slots();
+		if (key == EMPTY) {
+			if (!this.hasZeroKey) {
+				this.hasZeroKey = true;
+				this.size++;
+			}
+			this.zeroValue = value;
+			return;
+		}
+		if (this.oldSlots != null) {
+			migrateStep();
+		}
+		int idx = s.slotFor(key);
+		if (s.key(idx) == key) {
+			s.setValue(idx, value);
+			return;
+		}
+		s.set(idx, key, value);
+		// A key still waiting in the old slots is already counted.
+		if (this.oldSlots == null || this.oldSlots.indexOf(key) < 0) {
+			this.size++;
+		}
+		if (s.capacity * MAX_LOAD_FACTOR < this.size) {
+			growTable();
+		}
+	}
+
+	public boolean containsKey(long key) {
+		if (key == EMPTY) {
+			slots();
+			return this.hasZeroKey;
+		}
+		return slots().indexOf(key) >= 0 || this.oldSlots != null && this.oldSlots.indexOf(key) >= 0;
+	}
+
+	public long getOrDefault(long key, long defaultValue) {
+		if (key == EMPTY) {
+			slots();
+			return this.hasZeroKey ? this.zeroValue : defaultValue;
+		}
+		if (this.oldSlots != null) {
+			migrateStep();
+		}
+		int idx = slots().indexOf(key);
+		if (idx >= 0) {
+			return this.slots.value(idx);
+		}
+		if (this.oldSlots != null) {
+			idx = this.oldSlots.indexOf(key);
+			if (idx >= 0) {
+				return this.oldSlots.value(idx);
+			}
+		}
+		return defaultValue;
+	}
+
+	@Override
+	public void put(Long key, Long value) {
+		put(key.longValue(), value.longValue());
+	}
+
+	@Override
+	public Long get(Long key) {
+		long k = key.longValue();
+		if (k == EMPTY) {
+			slots();
+			return this.hasZeroKey ? Long.valueOf(this.zeroValue) : null;
+		}
+		if (this.oldSlots != null) {
+			migrateStep();
+		}
+		int idx = slots().indexOf(k);
+		if (idx >= 0) {
+			return Long.valueOf(this.slots.value(idx));
+		}
+		if (this.oldSlots != null) {
+			idx = this.oldSlots.indexOf(k);
+			if (idx >= 0) {
+				return Long.valueOf(this.oldSlots.value(idx));
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Bytes of native memory the table holds.
+	 */
+	public long offHeapBytes() {
+		long bytes = (long) slots().capacity * SLOT_BYTES;
+		return this.oldSlots != null ? bytes + (long) this.oldSlots.capacity * SLOT_BYTES : bytes;
+	}
+
+	/*
+	 * Frees the native memory. The table cannot be used afterwards; closing it
+	 * again does nothing.
+	 */
+	@Override
+	public void close() {
+		if (this.slots != null) {
+			this.slots.free();
+			this.slots = null;
+		}
+		if (this.oldSlots != null) {
+			this.oldSlots.free();
+			this.oldSlots = null;
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
@@ -0,0 +1,97 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class OffHeapLongLongHash2KTest {
+
+	@Test
+	/*
+	 * Inserts keys, some of them duplicates, and checks size and values against
+	 * a HashMap, growing all at once and incrementally.
+	 */
+	void testPutGet() {
+		for (ResizeMode mode : ResizeMode.values()) {
+			SplittableRandom rng = new SplittableRandom(1);
+			for (int i = 10; i <= 100000; i *= 10) {
+				try (OffHeapLongLongHash2K h = new OffHeapLongLongHash2K(mode)) {
+					Map<Long, Long> expected = new HashMap<>();
+					for (int j = 0; j < i; j++) {
+						long k = rng.nextLong(i / 2) << 33 ^ rng.nextLong(2);
+						long v = rng.nextLong();
+						h.put(k, v);
+						expected.put(k, v);
+						assertEquals(expected.size(), h.size());
+					}
+					for (Map.Entry<Long, Long> e : expected.entrySet()) {
+						assertEquals(e.getValue(), h.get(e.getKey()));
+						assertEquals(e.getValue().longValue(), h.getOrDefault(e.getKey().longValue(), -1));
+						assertTrue(h.containsKey(e.getKey().longValue()));
+					}
+					assertFalse(h.containsKey(-42));
+					assertNull(h.get(Long.valueOf(-42)));
+				}
+			}
+		}
+	}
+
+	@Test
+	/*
+	 * 0 is the empty-slot sentinel, so it has to be stored on the side.
+	 */
+	void testZeroKey() {
+		try (OffHeapLongLongHash2K h = new OffHeapLongLongHash2K()) {
+			assertFalse(h.containsKey(0));
+			assertNull(h.get(Long.valueOf(0)));
+			h.put(0L, 17L);
+			h.put(0L, 18L);
+			assertTrue(h.containsKey(0));
+			assertEquals(18, h.getOrDefault(0, -1));
+			assertEquals(1, h.size());
+		}
+	}
+
+	@Test
+	/*
+	 * A presized table does not grow, and trimToSize() shrinks it back.
+	 */
+	void testCapacity() {
+		try (OffHeapLongLongHash2K h = new OffHeapLongLongHash2K(1000)) {
+			long bytes = h.offHeapBytes();
+			for (long k = 1; k <= 1000; k++) {
+				h.put(k, -k);
+			}
+			assertEquals(bytes, h.offHeapBytes());
+			h.ensureCapacity(100000);
+			assertTrue(h.offHeapBytes() > bytes);
+			h.trimToSize();
+			assertEquals(bytes, h.offHeapBytes());
+			for (long k = 1; k <= 1000; k++) {
+				assertEquals(-k, h.getOrDefault(k, 0));
+			}
+		}
+	}
+
+	@Test
+	/*
+	 * Once closed, the table refuses to be used, but closing it again is fine.
+	 */
+	void testClose() {
+		OffHeapLongLongHash2K h = new OffHeapLongLongHash2K();
+		h.put(1L, 2L);
+		h.close();
+		h.close();
+		assertThrows(IllegalStateException.class, () -> h.getOrDefault(1, 0));
+		assertThrows(IllegalStateException.class, () -> h.put(1L, 2L));
+		assertThrows(IllegalStateException.class, () -> h.containsKey(0));
+	}
+}
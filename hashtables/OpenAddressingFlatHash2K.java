@@ -0,0 +1,236 @@
+package hashtables;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/*
+ * Same probing as OpenAddressingHash2K, but without Entry objects: keys and
+ * values are interleaved in a single Object[] (key at 2i, value at 2i + 1).
+ * A probe sequence then walks contiguous memory, and the value of a hit is
+ * usually on the same cache line as its key. Apart from resizes, put does not
+ * allocate.
+ *
+ * build() creates a finished table from many entries at once in parallel; see
+ * there.
+ */
+public class OpenAddressingFlatHash2K<K, V> implements HashTable<K, V> {
+	private Object[] slots;
+	private static final int INITIAL_CAPACITY = 4; // Must be a power of two.
+	private static final double MAX_LOAD_FACTOR = 0.75;
+	// Regions per thread in build(), so that uneven regions even out.
+	private static final int PARTITIONS_PER_THREAD = 4;
+	private int size;
+
+	public OpenAddressingFlatHash2K() {
+		this(0);
+	}
+
+	public OpenAddressingFlatHash2K(int expectedSize) {
+		this.slots = new Object[HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY) * 2];
+		this.size = 0;
+	}
+
+	/*
+	 * Creates a table holding keys[i] -> values[i] for every i, as if they had
+	 * been put one after another (so for a duplicate key the last value wins),
+	 * using the common ForkJoinPool.
+	 */
+	public static <K, V> OpenAddressingFlatHash2K<K, V> build(K[] keys, V[] values) {
+		return build(keys, values, ForkJoinPool.commonPool());
+	}
+
+	public static <K, V> OpenAddressingFlatHash2K<K, V> build(List<K> keys, List<V> values) {
+		return build(keys.toArray(), values.toArray(), ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * The table is allocated at its final size up front, so it never grows, and
+	 * split into PARTITIONS_PER_THREAD regions of slots per thread of pool.
+	 * Since the high bits of a key's home slot select its region, the input
+	 * can be partitioned by hash first and then every region filled by its own
+	 * task, without any synchronization. A key whose probe sequence runs past
+	 * the end of its region is put afterwards by the calling thread, which is
+	 * rare at this load factor. Partitioning keeps the input order within a
+	 * region, so duplicates resolve exactly as with sequential puts.
+	 */
+	public static <K, V> OpenAddressingFlatHash2K<K, V> build(Object[] keys, Object[] values, ForkJoinPool pool) {
+		if (keys.length != values.length) {
+			throw new IllegalArgumentException("keys and values differ in length");
+		}
+		int n = keys.length;
+		OpenAddressingFlatHash2K<K, V> table = new OpenAddressingFlatHash2K<>(n);
+		int capacity = table.capacity();
+		int partitions = Integer.highestOneBit(pool.getParallelism() * PARTITIONS_PER_THREAD);
+		partitions = Math.min(partitions, capacity);
+		int mask = capacity - 1;
+		int partitionShift = Integer.numberOfTrailingZeros(capacity) - Integer.numberOfTrailingZeros(partitions);
+
+		// Partition the input indices by region: count per chunk of input and
+		// region, then scatter each chunk into its precomputed offsets.
+		int chunks = partitions;
+		int chunkSize = (n + chunks - 1) / chunks;
+		int[][] counts = new int[chunks][partitions];
+		forEachParallel(pool, chunks, c -> {
+			for (int i = c * chunkSize; i < Math.min(n, (c + 1) * chunkSize); i++) {
+				counts[c][(HashUtils.mix(keys[i].hashCode()) & mask) >>> partitionShift]++;
+			}
+		});
+		int[] partitionStart = new int[partitions + 1];
+		int[][] offsets = new int[chunks][partitions];
+		int offset = 0;
+		for (int p = 0; p < partitions; p++) {
+			partitionStart[p] = offset;
+			for (int c = 0; c < chunks; c++) {
+				offsets[c][p] = offset;
+				offset += counts[c][p];
+			}
+		}
+		partitionStart[partitions] = offset;
+		int[] order = new int[n];
+		forEachParallel(pool, chunks, c -> {
+			int[] next = offsets[c];
+			for (int i = c * chunkSize; i < Math.min(n, (c + 1) * chunkSize); i++) {
+				order[next[(HashUtils.mix(keys[i].hashCode()) & mask) >>> partitionShift]++] = i;
+			}
+		});
+
+		// Fill every region. Keys that would leave their region are marked by
+		// setting their index in order to -1 - index.
+		int[] added = new int[partitions];
+		Object[] slots = table.slots;
+		forEachParallel(pool, partitions, p -> {
+			int regionEnd = (p + 1 << partitionShift) - 1;
+			for (int j = partitionStart[p]; j < partitionStart[p + 1]; j++) {
+				int i = order[j];
+				Object key = keys[i];
+				int hash = HashUtils.mix(key.hashCode()) & mask;
+				boolean overflow = false;
+				while (slots[hash << 1] != null && !slots[hash << 1].equals(key)) {
+					if (hash == regionEnd) {
+						overflow = true;
+						break;
+					}
+					hash++;
+				}
+				if (overflow) {
+					order[j] = -1 - i;
+					continue;
+				}
+				if (slots[hash << 1] == null) {
+					slots[hash << 1] = key;
+					added[p]++;
+				}
+				slots[(hash << 1) + 1] = values[i];
+			}
+		});
+		for (int a : added) {
+			table.size += a;
+		}
+		// The overflow, in input order. put() cannot trigger growTable() here,
+		// since the capacity was chosen for all n keys.
+		for (int j = 0; j < n; j++) {
+			if (order[j] < 0) {
+				int i = -1 - order[j];
+				table.putUnchecked(keys[i], values[i]);
+			}
+		}
+		return table;
+	}
+
+	// Runs task(0) ... task(n - 1) in pool and waits for all of them.
+	private static void forEachParallel(ForkJoinPool pool, int n, IntConsumer task) {
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			int index = i;
+			tasks.add(ForkJoinTask.adapt(() -> task.accept(index)));
+		}
+		pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private void putUnchecked(Object key, Object value) {
+		put((K) key, (V) value);
+	}
+
+	private int capacity() {
+		return this.slots.length >> 1;
+	}
+
+	private void growTable() {
+		rehash(capacity() * 2);
+	}
+
+	// Copies each key/value pair into the new interleaved array; with no
+	// stored hashes, every key is hashed again.
+	private void rehash(int capacity) {
+		Object[] newSlots = new Object[capacity * 2];
+		int mask = capacity - 1;
+		for (int i = 0; i < this.slots.length; i += 2) {
+			if (this.slots[i] != null) {
+				int hash = HashUtils.mix(this.slots[i].hashCode()) & mask;
+				while (newSlots[hash << 1] != null) {
+					hash = hash + 1 & mask;
+				}
+				newSlots[hash << 1] = this.slots[i];
+				newSlots[(hash << 1) + 1] = this.slots[i + 1];
+			}
+		}
+		this.slots = newSlots;
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		HashUtils.ensurePowerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, capacity(), this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		HashUtils.trimPowerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, capacity(), this::rehash);
+	}
+
+	@Override
+	public void put(K key, V value) {
+		int mask = capacity() - 1;
+		int hash = HashUtils.mix(key.hashCode()) & mask;
+		while (this.slots[hash << 1] != null) {
+			if (this.slots[hash << 1].equals(key)) {
+				this.slots[(hash << 1) + 1] = value;
+				return;
+			}
+			hash = hash + 1 & mask;
+		}
+		this.slots[hash << 1] = key;
+		this.slots[(hash << 1) + 1] = value;
+		this.size++;
+		if (loadFactorTooHigh()) {
+			growTable();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(K key) {
+		int mask = capacity() - 1;
+		int hash = HashUtils.mix(key.hashCode()) & mask;
+		while (this.slots[hash << 1] != null) {
+			if (this.slots[hash << 1].equals(key)) {
+				return (V) this.slots[(hash << 1) + 1];
+			}
+			hash = hash + 1 & mask;
+		}
+		return null;
+	}
+
+	private boolean loadFactorTooHigh() {
+		return capacity() * MAX_LOAD_FACTOR < this.size;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
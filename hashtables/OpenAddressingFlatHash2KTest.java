@@ -0,0 +1,55 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class OpenAddressingFlatHash2KTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return OpenAddressingFlatHash2K::new;
+	}
+
+	@Test
+	/*
+	 * Builds tables of many sizes in parallel, from keys with plenty of
+	 * duplicates, and checks them against a HashMap filled with sequential
+	 * puts. The small tables have only a few slots per region, so many keys
+	 * overflow their region and take the sequential path. The table must keep
+	 * working as usual afterwards.
+	 */
+	void testBuild() {
+		SplittableRandom rng = new SplittableRandom(5);
+		ForkJoinPool pool = new ForkJoinPool(8);
+		try {
+			for (int n : new int[] { 0, 1, 10, 100, 1000, 100000 }) {
+				Integer[] keys = new Integer[n];
+				Integer[] values = new Integer[n];
+				Map<Integer, Integer> expected = new HashMap<>();
+				for (int i = 0; i < n; i++) {
+					keys[i] = rng.nextInt(Math.max(1, n / 2));
+					values[i] = rng.nextInt();
+					expected.put(keys[i], values[i]);
+				}
+				OpenAddressingFlatHash2K<Integer, Integer> h = OpenAddressingFlatHash2K.build(keys, values, pool);
+				assertEquals(expected.size(), h.size());
+				for (Map.Entry<Integer, Integer> e : expected.entrySet()) {
+					assertEquals(e.getValue(), h.get(e.getKey()));
+				}
+				for (int k = n; k <= 2 * n; k++) {
+					h.put(k, -k);
+				}
+				assertEquals(expected.size() + n + 1, h.size());
+				assertEquals(Integer.valueOf(-n), h.get(n));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
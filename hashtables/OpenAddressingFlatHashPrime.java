@@ -0,0 +1,116 @@
+package hashtables;
+
+import java.math.BigInteger;
+
+/*
+ * Same probing as OpenAddressingHashPrime, but without Entry objects: keys and
+ * values are interleaved in a single Object[] (key at 2i, value at 2i + 1).
+ * See OpenAddressingFlatHash2K.
+ */
+public class OpenAddressingFlatHashPrime<K, V> implements HashTable<K, V> {
+	private Object[] slots;
+	private static final int INITIAL_CAPACITY = 5; // Must be prime.
+	private static final double MAX_LOAD_FACTOR = 0.75;
+	private static final double GROWTH_FACTOR = 1.6; // Must be > 1.
+
+	private int size;
+	// HashUtils.fastModMultiplier(capacity()), so that we do not need an
+	// integer division to map a hash to a slot.
+	private long modMultiplier;
+
+	public OpenAddressingFlatHashPrime() {
+		this(0);
+	}
+
+	public OpenAddressingFlatHashPrime(int expectedSize) {
+		this.slots = new Object[HashUtils.primeCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY) * 2];
+		this.modMultiplier = HashUtils.fastModMultiplier(capacity());
+		this.size = 0;
+	}
+
+	private int capacity() {
+		return this.slots.length >> 1;
+	}
+
+	private void growTable() {
+		int oldCapacity = capacity();
+		int smallestPossibleNewSize = (int) Math.max(oldCapacity * GROWTH_FACTOR, oldCapacity + 1);
+		BigInteger newSize = BigInteger.valueOf(smallestPossibleNewSize).nextProbablePrime();
+		rehash((int) newSize.longValue());
+	}
+
+	// As in OpenAddressingFlatHash2K, but the capacity must be prime and comes
+	// with a new modMultiplier.
+	private void rehash(int capacity) {
+		Object[] newSlots = new Object[capacity * 2];
+		long multiplier = HashUtils.fastModMultiplier(capacity);
+		for (int i = 0; i < this.slots.length; i += 2) {
+			if (this.slots[i] != null) {
+				int hash = HashUtils.fastMod(HashUtils.mix(this.slots[i].hashCode()) & 0x7FFFFFFF, multiplier,
+						capacity);
+				while (newSlots[hash << 1] != null) {
+					hash = hash + 1 < capacity ? hash + 1 : 0;
+				}
+				newSlots[hash << 1] = this.slots[i];
+				newSlots[(hash << 1) + 1] = this.slots[i + 1];
+			}
+		}
+		this.slots = newSlots;
+		this.modMultiplier = multiplier;
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		HashUtils.ensurePrimeCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, capacity(), this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		HashUtils.trimPrimeCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, capacity(), this::rehash);
+	}
+
+	@Override
+	public void put(K key, V value) {
+		int capacity = capacity();
+		// Must mask the most significant bit to avoid negative table indices.
+		int hash = HashUtils.fastMod(HashUtils.mix(key.hashCode()) & 0x7FFFFFFF, this.modMultiplier, capacity);
+		while (this.slots[hash << 1] != null) {
+			if (this.slots[hash << 1].equals(key)) {
+				this.slots[(hash << 1) + 1] = value;
+				return;
+			}
+			hash = hash + 1 < capacity ? hash + 1 : 0;
+		}
+		this.slots[hash << 1] = key;
+		this.slots[(hash << 1) + 1] = value;
+		this.size++;
+		if (loadFactorTooHigh()) {
+			growTable();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(K key) {
+		int capacity = capacity();
+		// Must mask the most significant bit to avoid negative table indices.
+		int hash = HashUtils.fastMod(HashUtils.mix(key.hashCode()) & 0x7FFFFFFF, this.modMultiplier, capacity);
+		while (this.slots[hash << 1] != null) {
+			if (this.slots[hash << 1].equals(key)) {
+				return (V) this.slots[(hash << 1) + 1];
+			}
+			hash = hash + 1 < capacity ? hash + 1 : 0;
+		}
+		return null;
+	}
+
+	private boolean loadFactorTooHigh() {
+		return capacity() * MAX_LOAD_FACTOR < this.size;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
@@ -0,0 +1,9 @@
+package hashtables;
+
+class OpenAddressingFlatHashPrimeTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return OpenAddressingFlatHashPrime::new;
+	}
+}
@@ -1,6 +1,12 @@
 package hashtables;
 
-public class OpenAddressingHash2K<K, V> implements HashTable<K, V> {
+/*
+ * Open addressing with a power-of-two capacity. Next to the entries, the table
+ * keeps the mixed hash of each key in a parallel int array: probes compare it
+ * before calling equals(), so that they do not even load the entries of
+ * other keys, and resizes reuse it instead of calling hashCode() again.
+ */
+public class OpenAddressingHash2K<K, V> implements HashTable<K, V>, ProbeStatistics {
 	private static class Entry<K, V> {
 		public K key;
 		public V value;
@@ -12,51 +18,207 @@ public class OpenAddressingHash2K<K, V> implements HashTable<K, V> {
 	}
 
 	private Entry<K, V>[] entries;
+	// The mixed hash of the key in the same slot of entries.
+	private int[] hashes;
 	private static final int INITIAL_CAPACITY = 4; // Must be a power of two.
 	private static final double MAX_LOAD_FACTOR = 0.75;
+	// Old slots moved per operation in ResizeMode.INCREMENTAL. Must be greater
+	// than 1 / MAX_LOAD_FACTOR so that the old table is drained before the new
+	// one fills up.
+	private static final int MIGRATION_STEP = 16;
 	private int size;
 
-	@SuppressWarnings("unchecked")
+	private final ResizeMode resizeMode;
+	// While an incremental resize is in progress, the previous table and the
+	// number of its slots that have been moved into entries.
+	private Entry<K, V>[] oldEntries;
+	private int[] oldHashes;
+	private int migrated;
+
+	private final ProbeStrategy probeStrategy;
+	// probeStrategy.stepIncrement, kept here so the probe loops read a field of
+	// the table.
+	private final int stepIncrement;
+	// Null unless StatsRecorder.ENABLED.
+	private final StatsRecorder stats = StatsRecorder.ENABLED ? new StatsRecorder() : null;
+
 	public OpenAddressingHash2K() {
+		this(0, ResizeMode.ALL_AT_ONCE);
+	}
+
+	public OpenAddressingHash2K(ResizeMode resizeMode) {
+		this(0, resizeMode);
+	}
+
+	public OpenAddressingHash2K(ProbeStrategy probeStrategy) {
+		this(0, ResizeMode.ALL_AT_ONCE, probeStrategy);
+	}
+
+	public OpenAddressingHash2K(int expectedSize) {
+		this(expectedSize, ResizeMode.ALL_AT_ONCE);
+	}
+
+	public OpenAddressingHash2K(int expectedSize, ResizeMode resizeMode) {
+		this(expectedSize, resizeMode, ProbeStrategy.LINEAR);
+	}
+
+	@SuppressWarnings("unchecked")
+	public OpenAddressingHash2K(int expectedSize, ResizeMode resizeMode, ProbeStrategy probeStrategy) {
 		// No way to instantiate an array with proper generics.
 		// This is safe as long as we keep Entry private.
 		// Non-solution:
 		// If we were to make the Entry class non-static, the consequence
 		// would be that each Entry object will carry a reference to the
 		// enclosing OpenAddressingHash-instance.
-		this.entries = new Entry[INITIAL_CAPACITY];
+		this.entries = new Entry[HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY)];
+		this.hashes = new int[this.entries.length];
 		this.size = 0;
+		this.resizeMode = resizeMode;
+		this.probeStrategy = probeStrategy;
+		this.stepIncrement = probeStrategy.stepIncrement;
+	}
+
+	// The first step of the probe sequence for the mixed hash of a key.
+	private int firstStep(int hash) {
+		// Any odd step visits every slot of a 2^k table. The home slot comes from
+		// the low bits, so take the step from the high ones.
+		return this.probeStrategy == ProbeStrategy.DOUBLE_HASHING ? hash >>> 16 | 1 : 1;
 	}
 
 	@SuppressWarnings("unchecked")
-	private OpenAddressingHash2K(int oldCapacity) {
+	private void growTable() {
+		if (this.resizeMode == ResizeMode.INCREMENTAL) {
+			// Cannot happen with a sufficiently large MIGRATION_STEP, but never
+			// keep more than two generations around.
+			finishMigration();
+			long start = StatsRecorder.ENABLED ? System.nanoTime() : 0;
+			this.oldEntries = this.entries;
+			this.oldHashes = this.hashes;
+			this.migrated = 0;
+			// See note for OpenAddressingHash above.
+			this.entries = new Entry[this.oldEntries.length * 2];
+			this.hashes = new int[this.entries.length];
+			if (StatsRecorder.ENABLED) {
+				this.stats.recordResize(start);
+			}
+			return;
+		}
+		rehash(this.entries.length * 2);
+	}
+
+	// Moves the Entry objects themselves, along the probe sequence of their
+	// stored hashes. Finishing an incremental resize is up to the caller.
+	@SuppressWarnings("unchecked")
+	private void rehash(int capacity) {
+		long start = StatsRecorder.ENABLED ? System.nanoTime() : 0;
 		// See note for OpenAddressingHash above.
-		this.entries = new Entry[oldCapacity * 2];
-		this.size = 0;
+		Entry<K, V>[] newEntries = new Entry[capacity];
+		int[] newHashes = new int[capacity];
+		for (int i = 0; i < this.entries.length; i++) {
+			if (this.entries[i] != null) {
+				int hash = this.hashes[i];
+				int idx = hash & capacity - 1;
+				int step = firstStep(hash);
+				while (newEntries[idx] != null) {
+					idx = idx + step & capacity - 1;
+					step += this.stepIncrement;
+				}
+				newEntries[idx] = this.entries[i];
+				newHashes[idx] = hash;
+			}
+		}
+		this.entries = newEntries;
+		this.hashes = newHashes;
+		if (StatsRecorder.ENABLED) {
+			this.stats.recordResize(start);
+		}
 	}
 
-	private void growTable() {
-		OpenAddressingHash2K<K, V> newTable = new OpenAddressingHash2K<>(this.entries.length);
-		for (Entry<K, V> e : this.entries) {
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		finishMigration();
+		HashUtils.ensurePowerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.entries.length,
+				this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		finishMigration();
+		HashUtils.trimPowerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.entries.length,
+				this::rehash);
+	}
+
+	private void finishMigration() {
+		while (this.oldEntries != null) {
+			migrateStep();
+		}
+	}
+
+	// Moves the next MIGRATION_STEP slots of oldEntries into entries. Slots are
+	// left in place in oldEntries so that its probe sequences stay intact; a
+	// key found in entries always shadows its copy in oldEntries.
+	private void migrateStep() {
+		int end = Math.min(this.migrated + MIGRATION_STEP, this.oldEntries.length);
+		for (int i = this.migrated; i < end; i++) {
+			Entry<K, V> e = this.oldEntries[i];
 			if (e != null) {
-				newTable.put(e.key, e.value);
+				int hash = this.oldHashes[i];
+				int idx = hash & this.entries.length - 1;
+				int step = firstStep(hash);
+				while (this.entries[idx] != null
+						&& (this.hashes[idx] != hash || !this.entries[idx].key.equals(e.key))) {
+					idx = idx + step & this.entries.length - 1;
+					step += this.stepIncrement;
+				}
+				// If the key has been put since the resize began, that value wins.
+				if (this.entries[idx] == null) {
+					this.entries[idx] = e;
+					this.hashes[idx] = hash;
+				}
 			}
 		}
-		this.entries = newTable.entries;
+		this.migrated = end;
+		if (end == this.oldEntries.length) {
+			this.oldEntries = null;
+			this.oldHashes = null;
+		}
+	}
+
+	private Entry<K, V> find(Entry<K, V>[] entries, int[] hashes, int hash, K key) {
+		int idx = hash & entries.length - 1;
+		int step = firstStep(hash);
+		while (entries[idx] != null) {
+			if (hashes[idx] == hash && entries[idx].key.equals(key)) {
+				return entries[idx];
+			}
+			idx = idx + step & entries.length - 1;
+			step += this.stepIncrement;
+		}
+		return null;
 	}
 
 	@Override
 	public void put(K key, V value) {
-		int hash = HashUtils.mix(key.hashCode()) & this.entries.length - 1;
-		while (this.entries[hash] != null) {
-			if (this.entries[hash].key.equals(key)) {
-				this.entries[hash].value = value;
+		if (this.oldEntries != null) {
+			migrateStep();
+		}
+		int hash = HashUtils.mix(key.hashCode());
+		int idx = hash & this.entries.length - 1;
+		int step = firstStep(hash);
+		while (this.entries[idx] != null) {
+			if (this.hashes[idx] == hash && this.entries[idx].key.equals(key)) {
+				this.entries[idx].value = value;
 				return;
 			}
-			hash = hash + 1 & this.entries.length - 1;
+			idx = idx + step & this.entries.length - 1;
+			step += this.stepIncrement;
+		}
+		this.entries[idx] = new Entry<>(key, value);
+		this.hashes[idx] = hash;
+		// A key still waiting in the old table is already counted.
+		if (this.oldEntries == null || find(this.oldEntries, this.oldHashes, hash, key) == null) {
+			this.size++;
 		}
-		this.entries[hash] = new Entry<>(key, value);
-		this.size++;
 		if (loadFactorTooHigh()) {
 			growTable();
 		}
@@ -64,20 +226,88 @@ public class OpenAddressingHash2K<K, V> implements HashTable<K, V> {
 
 	@Override
 	public V get(K key) {
-		int hash = HashUtils.mix(key.hashCode()) & this.entries.length - 1;
-		while (this.entries[hash] != null) {
-			if (this.entries[hash].key.equals(key)) {
-				return this.entries[hash].value;
+		if (this.oldEntries != null) {
+			migrateStep();
+		}
+		int hash = HashUtils.mix(key.hashCode());
+		int idx = hash & this.entries.length - 1;
+		int step = firstStep(hash);
+		int probes = 0;
+		while (this.entries[idx] != null) {
+			probes++;
+			if (this.hashes[idx] == hash && this.entries[idx].key.equals(key)) {
+				if (StatsRecorder.ENABLED) {
+					this.stats.recordHit(probes);
+				}
+				return this.entries[idx].value;
 			}
-			hash = hash + 1 & this.entries.length - 1;
+			idx = idx + step & this.entries.length - 1;
+			step += this.stepIncrement;
 		}
-		return null;
+		Entry<K, V> e = this.oldEntries != null ? find(this.oldEntries, this.oldHashes, hash, key) : null;
+		if (StatsRecorder.ENABLED) {
+			// Only counts the probes in the current table.
+			if (e != null) {
+				this.stats.recordHit(probes);
+			} else {
+				this.stats.recordMiss(probes);
+			}
+		}
+		return e != null ? e.value : null;
+	}
+
+	// Only counts the keys already moved to the current table while an
+	// incremental resize is in progress.
+	@Override
+	public double averageProbeLength() {
+		long probes = 0;
+		int keys = 0;
+		for (int i = 0; i < this.entries.length; i++) {
+			if (this.entries[i] != null) {
+				int hash = this.hashes[i];
+				int idx = hash & this.entries.length - 1;
+				int step = firstStep(hash);
+				probes++;
+				while (idx != i) {
+					idx = idx + step & this.entries.length - 1;
+					step += this.stepIncrement;
+					probes++;
+				}
+				keys++;
+			}
+		}
+		return keys > 0 ? (double) probes / keys : 0;
+	}
+
+	// The slot layout, for Snapshots.save(). capacity() finishes an incremental
+	// resize, so that every key is in entries.
+
+	int capacity() {
+		finishMigration();
+		return this.entries.length;
+	}
+
+	K keyAt(int slot) {
+		return this.entries[slot] != null ? this.entries[slot].key : null;
+	}
+
+	V valueAt(int slot) {
+		return this.entries[slot] != null ? this.entries[slot].value : null;
+	}
+
+	ProbeStrategy probeStrategy() {
+		return this.probeStrategy;
 	}
 
 	private boolean loadFactorTooHigh() {
 		return this.entries.length * MAX_LOAD_FACTOR < this.size;
 	}
 
+	@Override
+	public HashTableStats stats() {
+		return StatsRecorder.ENABLED ? this.stats.snapshot(this.size, this.entries.length) : null;
+	}
+
 	@Override
 	public int size() {
 		return this.size;
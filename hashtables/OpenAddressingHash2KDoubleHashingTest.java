@@ -0,0 +1,14 @@
+package hashtables;
+
+class OpenAddressingHash2KDoubleHashingTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return new HashTableFactory() {
+			@Override
+			public <K, V> HashTable<K, V> newInstance() {
+				return new OpenAddressingHash2K<>(ProbeStrategy.DOUBLE_HASHING);
+			}
+		};
+	}
+}
@@ -0,0 +1,14 @@
+package hashtables;
+
+class OpenAddressingHash2KIncrementalTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return new HashTableFactory() {
+			@Override
+			public <K, V> HashTable<K, V> newInstance() {
+				return new OpenAddressingHash2K<>(ResizeMode.INCREMENTAL);
+			}
+		};
+	}
+}
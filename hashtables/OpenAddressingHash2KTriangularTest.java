@@ -0,0 +1,14 @@
+package hashtables;
+
+class OpenAddressingHash2KTriangularTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return new HashTableFactory() {
+			@Override
+			public <K, V> HashTable<K, V> newInstance() {
+				return new OpenAddressingHash2K<>(ProbeStrategy.TRIANGULAR);
+			}
+		};
+	}
+}
@@ -2,7 +2,12 @@ package hashtables;
 
 import java.math.BigInteger;
 
-public class OpenAddressingHashPrime<K, V> implements HashTable<K, V> {
+/*
+ * Open addressing with a prime capacity. As in OpenAddressingHash2K, the mixed
+ * hash of each key is kept in a parallel int array, compared before equals()
+ * and reused when the table grows.
+ */
+public class OpenAddressingHashPrime<K, V> implements HashTable<K, V>, ProbeStatistics {
 	private static class Entry<K, V> {
 		public K key;
 		public V value;
@@ -14,55 +19,130 @@ public class OpenAddressingHashPrime<K, V> implements HashTable<K, V> {
 	}
 
 	private Entry<K, V>[] entries;
+	// The mixed hash of the key in the same slot of entries.
+	private int[] hashes;
 	private static final int INITIAL_CAPACITY = 5; // Must be prime.
 	private static final double MAX_LOAD_FACTOR = 0.75;
 	private static final double GROWTH_FACTOR = 1.6; // Must be > 1.
 
 	private int size;
+	// HashUtils.fastModMultiplier(entries.length), so that we do not need an
+	// integer division to map a hash to a bucket.
+	private long modMultiplier;
+	private final ProbeStrategy probeStrategy;
+	// Null unless StatsRecorder.ENABLED.
+	private final StatsRecorder stats = StatsRecorder.ENABLED ? new StatsRecorder() : null;
 
-	@SuppressWarnings("unchecked")
 	public OpenAddressingHashPrime() {
+		this(0);
+	}
+
+	public OpenAddressingHashPrime(ProbeStrategy probeStrategy) {
+		this(0, probeStrategy);
+	}
+
+	public OpenAddressingHashPrime(int expectedSize) {
+		this(expectedSize, ProbeStrategy.LINEAR);
+	}
+
+	/*
+	 * Only LINEAR and DOUBLE_HASHING: triangular probing does not visit every
+	 * slot of a table with a prime capacity.
+	 */
+	@SuppressWarnings("unchecked")
+	public OpenAddressingHashPrime(int expectedSize, ProbeStrategy probeStrategy) {
+		if (probeStrategy == ProbeStrategy.TRIANGULAR) {
+			throw new IllegalArgumentException("Triangular probing needs a 2^k capacity");
+		}
 		// No way to instantiate an array with proper generics.
 		// This is safe as long as we keep Entry private.
 		// Non-solution:
 		// If we were to make the Entry class non-static, the consequence
 		// would be that each Entry object will carry a reference to the
 		// enclosing OpenAddressingHash-instance.
-		this.entries = new Entry[INITIAL_CAPACITY];
+		this.entries = new Entry[HashUtils.primeCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY)];
+		this.hashes = new int[this.entries.length];
+		this.modMultiplier = HashUtils.fastModMultiplier(this.entries.length);
 		this.size = 0;
+		this.probeStrategy = probeStrategy;
 	}
 
-	@SuppressWarnings("unchecked")
-	private OpenAddressingHashPrime(int oldCapacity) {
+	// The step of the probe sequence for the mixed hash of a key, on [1,
+	// capacity - 1].
+	private int step(int hash, int capacity) {
+		if (this.probeStrategy == ProbeStrategy.LINEAR) {
+			return 1;
+		}
+		// Every step is coprime with a prime capacity. Rotated, so that it does
+		// not depend on the same bits as the home slot, and mapped onto the range
+		// with a multiplication instead of a remainder.
+		return 1 + (int) ((Integer.rotateLeft(hash, 16) & 0xFFFFFFFFL) * (capacity - 1) >>> 32);
+	}
+
+	private void growTable() {
+		int oldCapacity = this.entries.length;
 		int smallestPossibleNewSize = (int) Math.max(oldCapacity * GROWTH_FACTOR, oldCapacity + 1);
 		BigInteger newSize = BigInteger.valueOf(smallestPossibleNewSize).nextProbablePrime();
-		// See note for OpenAddressingPrimeHash above.
-		this.entries = new Entry[(int) newSize.longValue()];
-		this.size = 0;
+		rehash((int) newSize.longValue());
 	}
 
-	private void growTable() {
-		OpenAddressingHashPrime<K, V> newTable = new OpenAddressingHashPrime<>(this.entries.length);
-		for (Entry<K, V> e : this.entries) {
-			if (e != null) {
-				newTable.put(e.key, e.value);
+	// Moves the Entry objects themselves, by their stored hashes, and switches
+	// to the modMultiplier of the new capacity, which must be prime.
+	@SuppressWarnings("unchecked")
+	private void rehash(int capacity) {
+		long start = StatsRecorder.ENABLED ? System.nanoTime() : 0;
+		// See note for OpenAddressingPrimeHash above.
+		Entry<K, V>[] newEntries = new Entry[capacity];
+		int[] newHashes = new int[capacity];
+		long multiplier = HashUtils.fastModMultiplier(capacity);
+		for (int i = 0; i < this.entries.length; i++) {
+			if (this.entries[i] != null) {
+				int hash = this.hashes[i];
+				int idx = HashUtils.fastMod(hash & 0x7FFFFFFF, multiplier, capacity);
+				int step = step(hash, capacity);
+				while (newEntries[idx] != null) {
+					idx = idx + step < capacity ? idx + step : idx + step - capacity;
+				}
+				newEntries[idx] = this.entries[i];
+				newHashes[idx] = hash;
 			}
 		}
-		this.entries = newTable.entries;
+		this.entries = newEntries;
+		this.hashes = newHashes;
+		this.modMultiplier = multiplier;
+		if (StatsRecorder.ENABLED) {
+			this.stats.recordResize(start);
+		}
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		HashUtils.ensurePrimeCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.entries.length,
+				this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		HashUtils.trimPrimeCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.entries.length, this::rehash);
 	}
 
 	@Override
 	public void put(K key, V value) {
+		int hash = HashUtils.mix(key.hashCode());
+		int capacity = this.entries.length;
 		// Must mask the most significant bit to avoid negative table indices.
-		int hash = (HashUtils.mix(key.hashCode()) & 0x7FFFFFFF) % this.entries.length;
-		while (this.entries[hash] != null) {
-			if (this.entries[hash].key.equals(key)) {
-				this.entries[hash].value = value;
+		int idx = HashUtils.fastMod(hash & 0x7FFFFFFF, this.modMultiplier, capacity);
+		int step = step(hash, capacity);
+		while (this.entries[idx] != null) {
+			if (this.hashes[idx] == hash && this.entries[idx].key.equals(key)) {
+				this.entries[idx].value = value;
 				return;
 			}
-			hash = (hash + 1) % this.entries.length;
+			// Cheaper than a remainder, fast or not.
+			idx = idx + step < capacity ? idx + step : idx + step - capacity;
 		}
-		this.entries[hash] = new Entry<>(key, value);
+		this.entries[idx] = new Entry<>(key, value);
+		this.hashes[idx] = hash;
 		this.size++;
 		if (loadFactorTooHigh()) {
 			growTable();
@@ -71,21 +151,59 @@ public class OpenAddressingHashPrime<K, V> implements HashTable<K, V> {
 
 	@Override
 	public V get(K key) {
+		int hash = HashUtils.mix(key.hashCode());
+		int capacity = this.entries.length;
 		// Must mask the most significant bit to avoid negative table indices.
-		int hash = (HashUtils.mix(key.hashCode()) & 0x7FFFFFFF) % this.entries.length;
-		while (this.entries[hash] != null) {
-			if (this.entries[hash].key.equals(key)) {
-				return this.entries[hash].value;
+		int idx = HashUtils.fastMod(hash & 0x7FFFFFFF, this.modMultiplier, capacity);
+		int step = step(hash, capacity);
+		int probes = 0;
+		while (this.entries[idx] != null) {
+			probes++;
+			if (this.hashes[idx] == hash && this.entries[idx].key.equals(key)) {
+				if (StatsRecorder.ENABLED) {
+					this.stats.recordHit(probes);
+				}
+				return this.entries[idx].value;
 			}
-			hash = (hash + 1) % this.entries.length;
+			// Cheaper than a remainder, fast or not.
+			idx = idx + step < capacity ? idx + step : idx + step - capacity;
+		}
+		if (StatsRecorder.ENABLED) {
+			this.stats.recordMiss(probes);
 		}
 		return null;
 	}
 
+	@Override
+	public double averageProbeLength() {
+		int capacity = this.entries.length;
+		long probes = 0;
+		int keys = 0;
+		for (int i = 0; i < capacity; i++) {
+			if (this.entries[i] != null) {
+				int hash = this.hashes[i];
+				int idx = HashUtils.fastMod(hash & 0x7FFFFFFF, this.modMultiplier, capacity);
+				int step = step(hash, capacity);
+				probes++;
+				while (idx != i) {
+					idx = idx + step < capacity ? idx + step : idx + step - capacity;
+					probes++;
+				}
+				keys++;
+			}
+		}
+		return keys > 0 ? (double) probes / keys : 0;
+	}
+
 	private boolean loadFactorTooHigh() {
 		return this.entries.length * MAX_LOAD_FACTOR < this.size;
 	}
 
+	@Override
+	public HashTableStats stats() {
+		return StatsRecorder.ENABLED ? this.stats.snapshot(this.size, this.entries.length) : null;
+	}
+
 	@Override
 	public int size() {
 		return this.size;
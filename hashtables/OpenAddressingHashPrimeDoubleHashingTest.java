@@ -0,0 +1,14 @@
+package hashtables;
+
+class OpenAddressingHashPrimeDoubleHashingTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return new HashTableFactory() {
+			@Override
+			public <K, V> HashTable<K, V> newInstance() {
+				return new OpenAddressingHashPrime<>(ProbeStrategy.DOUBLE_HASHING);
+			}
+		};
+	}
+}
@@ -1,9 +1,88 @@
 package hashtables;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
 class OpenAdressingHash2KTest extends HashTableTest {
+	// Counts the calls to hashCode() of all instances.
+	private static class CountingKey {
+		static int hashCodes;
+		private final int v;
+
+		CountingKey(int v) {
+			this.v = v;
+		}
+
+		@Override
+		public int hashCode() {
+			hashCodes++;
+			return this.v;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof CountingKey && ((CountingKey) obj).v == this.v;
+		}
+	}
 
 	@Override
 	HashTableFactory getHashTableFactory() {
 		return OpenAddressingHash2K::new;
 	}
+
+	@Test
+	/*
+	 * A lone key is found in its home slot. Many keys need more probes, but at a
+	 * load factor of at most 0.75 linear probing averages well under
+	 * (1 + 1 / (1 - 0.75)) / 2 = 2.5 slots per hit.
+	 */
+	void testAverageProbeLength() {
+		OpenAddressingHash2K<Integer, Integer> h = new OpenAddressingHash2K<>();
+		assertEquals(0, h.averageProbeLength());
+		h.put(1, 1);
+		assertEquals(1, h.averageProbeLength());
+		for (int k = 0; k < 100000; k++) {
+			h.put(k, k);
+		}
+		double probes = h.averageProbeLength();
+		assertTrue(probes > 1 && probes < 2.5, "average probe length " + probes);
+	}
+
+	@Test
+	/*
+	 * The table keeps the hash of every key, so growing it, all at once or
+	 * incrementally, hashes no key again: each put() hashes its key once.
+	 */
+	void testResizeReusesHashes() {
+		for (ResizeMode resizeMode : ResizeMode.values()) {
+			OpenAddressingHash2K<CountingKey, Integer> h = new OpenAddressingHash2K<>(resizeMode);
+			CountingKey.hashCodes = 0;
+			for (int k = 0; k < 100000; k++) {
+				h.put(new CountingKey(k), k);
+			}
+			h.trimToSize();
+			assertEquals(100000, CountingKey.hashCodes);
+			assertEquals(100000, h.size());
+			assertEquals(42, h.get(new CountingKey(42)));
+		}
+	}
+
+	@Test
+	/*
+	 * Outside HashTableStatsTest the tests run as in production: statistics are
+	 * not recorded, and stats() reports none.
+	 */
+	void testNoStatsByDefault() {
+		assertFalse(StatsRecorder.ENABLED);
+		OpenAddressingHash2K<Integer, Integer> h = new OpenAddressingHash2K<>();
+		for (int k = 0; k < 1000; k++) {
+			h.put(k, k);
+			h.get(k);
+		}
+		assertNull(h.stats());
+	}
 }
@@ -0,0 +1,13 @@
+package hashtables;
+
+/*
+ * Implemented by the open addressing tables that can tell how well their
+ * probe sequences work for the keys they hold.
+ */
+interface ProbeStatistics {
+	/*
+	 * The mean number of slots a successful get() looks at, over all keys in
+	 * the table (1.0 if every key is in its home slot).
+	 */
+	double averageProbeLength();
+}
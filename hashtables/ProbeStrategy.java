@@ -0,0 +1,37 @@
+package hashtables;
+
+/*
+ * The sequence of slots an open addressing table visits for a key. Every
+ * strategy is the same loop, slot += step and then step += stepIncrement, so a
+ * table can follow any of them without a virtual call in its probe loop: it
+ * only picks the first step and the increment when it starts probing.
+ */
+public enum ProbeStrategy {
+	/*
+	 * home, home + 1, home + 2, ... Cache friendly, but the clusters of
+	 * neighboring keys merge and grow.
+	 */
+	LINEAR(0),
+
+	/*
+	 * home, home + 1, home + 3, home + 6, ... (the triangular numbers), which
+	 * breaks up the clusters. Visits every slot only if the capacity is a power
+	 * of two.
+	 */
+	TRIANGULAR(1),
+
+	/*
+	 * home, home + s, home + 2s, ... with a step s taken from other bits of the
+	 * hash, so keys with the same home follow different sequences. Visits every
+	 * slot if s and the capacity are coprime: for a prime capacity any s will
+	 * do, for a power of two the tables use an odd s.
+	 */
+	DOUBLE_HASHING(0);
+
+	// Added to the step after every probe.
+	final int stepIncrement;
+
+	ProbeStrategy(int stepIncrement) {
+		this.stepIncrement = stepIncrement;
+	}
+}
@@ -0,0 +1,192 @@
+package hashtables;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.StampedLock;
+
+/*
+ * A thread-safe HashTable for read-mostly workloads: get() neither locks nor
+ * writes to shared memory, so readers do not contend with each other at all.
+ *
+ * The table is RobinHoodHash2K, whose inserts move existing entries further
+ * down their cluster. A reader that happens to probe a cluster while an entry
+ * is being moved could miss it, so the table is guarded by a sequence lock
+ * (StampedLock): writers bump its version while they modify the arrays, and a
+ * reader checks that the version did not change during its probe and probes
+ * again if it did. After MAX_OPTIMISTIC_READS failed attempts (a writer
+ * holding the lock for long) the reader takes the read lock instead of
+ * spinning.
+ *
+ * A resize does not block readers. The writer builds the larger table on the
+ * side and publishes it through a volatile field; readers keep probing the
+ * old arrays, which are never modified again, until they see the new ones.
+ *
+ * Writers are serialized by the table's monitor and should be rare.
+ */
+public class ReadMostlyHash2K<K, V> implements HashTable<K, V> {
+	private static final int INITIAL_CAPACITY = 4; // Must be a power of two.
+	private static final double MAX_LOAD_FACTOR = 0.9;
+	private static final int MAX_OPTIMISTIC_READS = 64;
+	// Keys are written with release and read with acquire semantics, since a
+	// reader calls equals() on them before it knows whether its read was
+	// consistent and must never see a half-constructed key.
+	private static final VarHandle KEY = MethodHandles.arrayElementVarHandle(Object[].class);
+
+	// One generation of the table. The arrays always have the same length.
+	private static final class Table {
+		final Object[] keys;
+		final Object[] values;
+		final int[] hashes;
+
+		Table(int capacity) {
+			this.keys = new Object[capacity];
+			this.values = new Object[capacity];
+			this.hashes = new int[capacity];
+		}
+	}
+
+	private final StampedLock lock = new StampedLock();
+	private volatile Table table;
+	private volatile int size;
+
+	public ReadMostlyHash2K() {
+		this(0);
+	}
+
+	public ReadMostlyHash2K(int expectedSize) {
+		this.table = new Table(HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY));
+		this.size = 0;
+	}
+
+	@Override
+	public synchronized void put(K key, V value) {
+		int hash = HashUtils.mix(key.hashCode());
+		Table t = this.table;
+		int idx = indexOf(t, key, hash);
+		long stamp = this.lock.writeLock();
+		try {
+			if (idx >= 0) {
+				t.values[idx] = value;
+				return;
+			}
+			insert(t, key, value, hash);
+		} finally {
+			this.lock.unlockWrite(stamp);
+		}
+		this.size++;
+		if (t.keys.length * MAX_LOAD_FACTOR < this.size) {
+			rehash(t, t.keys.length * 2);
+		}
+	}
+
+	// Builds a copy of t with the given capacity, without comparing keys, and
+	// publishes it. Must hold the table's monitor.
+	private void rehash(Table t, int capacity) {
+		Table newTable = new Table(capacity);
+		for (int i = 0; i < t.keys.length; i++) {
+			if (t.keys[i] != null) {
+				insert(newTable, t.keys[i], t.values[i], t.hashes[i]);
+			}
+		}
+		this.table = newTable;
+	}
+
+	@Override
+	public synchronized void ensureCapacity(int expectedSize) {
+		int capacity = HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY);
+		if (capacity > this.table.keys.length) {
+			rehash(this.table, capacity);
+		}
+	}
+
+	@Override
+	public synchronized void trimToSize() {
+		int capacity = HashUtils.powerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY);
+		if (capacity < this.table.keys.length) {
+			rehash(this.table, capacity);
+		}
+	}
+
+	// Inserts a key known not to be in t. Does not touch size.
+	private static void insert(Table t, Object key, Object value, int hash) {
+		int mask = t.keys.length - 1;
+		int idx = hash & mask;
+		int dist = 0;
+		Object k = key;
+		Object v = value;
+		int h = hash;
+		while (t.keys[idx] != null) {
+			int existingDist = idx - t.hashes[idx] & mask;
+			if (existingDist < dist) {
+				Object tk = t.keys[idx];
+				Object tv = t.values[idx];
+				int th = t.hashes[idx];
+				KEY.setRelease(t.keys, idx, k);
+				t.values[idx] = v;
+				t.hashes[idx] = h;
+				k = tk;
+				v = tv;
+				h = th;
+				dist = existingDist;
+			}
+			idx = idx + 1 & mask;
+			dist++;
+		}
+		t.values[idx] = v;
+		t.hashes[idx] = h;
+		KEY.setRelease(t.keys, idx, k);
+	}
+
+	// Returns the slot of key in t, or -1. May run concurrently with a writer
+	// and then return garbage, but always terminates without throwing (as long
+	// as equals() does not throw).
+	private static int indexOf(Table t, Object key, int hash) {
+		int mask = t.keys.length - 1;
+		int idx = hash & mask;
+		for (int dist = 0; dist <= mask; dist++) {
+			Object k = KEY.getAcquire(t.keys, idx);
+			if (k == null || (idx - t.hashes[idx] & mask) < dist) {
+				return -1;
+			}
+			if (t.hashes[idx] == hash && k.equals(key)) {
+				return idx;
+			}
+			idx = idx + 1 & mask;
+		}
+		return -1;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(K key) {
+		int hash = HashUtils.mix(key.hashCode());
+		for (int attempt = 0; attempt < MAX_OPTIMISTIC_READS; attempt++) {
+			long stamp = this.lock.tryOptimisticRead();
+			if (stamp == 0) {
+				// A writer holds the lock.
+				Thread.onSpinWait();
+				continue;
+			}
+			Table t = this.table;
+			int idx = indexOf(t, key, hash);
+			Object value = idx >= 0 ? t.values[idx] : null;
+			if (this.lock.validate(stamp)) {
+				return (V) value;
+			}
+		}
+		long stamp = this.lock.readLock();
+		try {
+			Table t = this.table;
+			int idx = indexOf(t, key, hash);
+			return idx >= 0 ? (V) t.values[idx] : null;
+		} finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
@@ -0,0 +1,66 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class ReadMostlyHash2KTest extends HashTableTest {
+	private static final int READERS = 3;
+	private static final int KEYS = 100000;
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return ReadMostlyHash2K::new;
+	}
+
+	@Test
+	/*
+	 * Readers look up the first half of the keys, which are in the table from
+	 * the start, while a writer inserts the second half. The inserts move
+	 * entries around and resize the table, but a reader must never miss one of
+	 * the old keys or see another value for it.
+	 */
+	void testReadsDuringInserts() throws InterruptedException {
+		ReadMostlyHash2K<Integer, Integer> h = new ReadMostlyHash2K<>();
+		for (int k = 0; k < KEYS / 2; k++) {
+			h.put(k, -k);
+		}
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicBoolean wrongValue = new AtomicBoolean();
+		List<Thread> readers = new ArrayList<>();
+		for (int t = 0; t < READERS; t++) {
+			int first = t;
+			readers.add(new Thread(() -> {
+				while (!done.get()) {
+					for (int k = first; k < KEYS / 2; k += READERS) {
+						Integer v = h.get(k);
+						if (v == null || v != -k) {
+							wrongValue.set(true);
+						}
+					}
+				}
+			}));
+		}
+		for (Thread r : readers) {
+			r.start();
+		}
+		for (int k = KEYS / 2; k < KEYS; k++) {
+			h.put(k, -k);
+		}
+		done.set(true);
+		for (Thread r : readers) {
+			r.join();
+		}
+
+		assertFalse(wrongValue.get());
+		assertEquals(KEYS, h.size());
+		for (int k = 0; k < KEYS; k++) {
+			assertEquals(Integer.valueOf(-k), h.get(k));
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package hashtables;
+
+/*
+ * How a table moves its entries over to a larger table when it grows.
+ */
+public enum ResizeMode {
+	/*
+	 * Rehash every entry inside the put() that triggers the resize. Cheapest in
+	 * total, but that one put() costs O(n).
+	 */
+	ALL_AT_ONCE,
+
+	/*
+	 * Keep the old table next to the new one and move a bounded number of its
+	 * buckets on every put() and get(). Lookups check both tables until the old
+	 * one is drained, so no single operation costs more than O(1) amortized
+	 * bucket moves (plus allocating the new array).
+	 */
+	INCREMENTAL
+}
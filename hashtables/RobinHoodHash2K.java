@@ -0,0 +1,224 @@
+package hashtables;
+
+/*
+ * Open addressing with linear probing and Robin Hood insertion: an entry that
+ * is further away from its home slot than the entry occupying a slot takes
+ * that slot over, and the displaced entry continues probing. This keeps the
+ * variance of the probe distances low, which allows a higher load factor than
+ * OpenAddressingHash2K, and lets a lookup stop as soon as it meets an entry
+ * closer to its home slot than the key it is looking for (the key would have
+ * displaced it).
+ *
+ * Keys and values live in parallel arrays, next to the mixed hash of each key.
+ * The hash gives us the home slot (and thereby the probe distance) of an
+ * entry without calling hashCode() again, and is compared before equals().
+ *
+ * Deletion shifts the following entries of the cluster one step back instead
+ * of leaving tombstones.
+ */
+public class RobinHoodHash2K<K, V> implements HashTable<K, V> {
+	private static final int INITIAL_CAPACITY = 4; // Must be a power of two.
+	private static final double MAX_LOAD_FACTOR = 0.9;
+
+	private Object[] keys;
+	private Object[] values;
+	private int[] hashes;
+	private int size;
+	// Null unless StatsRecorder.ENABLED.
+	private final StatsRecorder stats = StatsRecorder.ENABLED ? new StatsRecorder() : null;
+
+	public RobinHoodHash2K() {
+		this(0);
+	}
+
+	public RobinHoodHash2K(int expectedSize) {
+		int capacity = HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY);
+		this.keys = new Object[capacity];
+		this.values = new Object[capacity];
+		this.hashes = new int[capacity];
+		this.size = 0;
+	}
+
+	private void growTable() {
+		rehash(this.keys.length * 2);
+	}
+
+	// Goes straight to insert() with the stored hashes, which keeps the Robin
+	// Hood order in the new arrays.
+	@SuppressWarnings("unchecked")
+	private void rehash(int capacity) {
+		long start = StatsRecorder.ENABLED ? System.nanoTime() : 0;
+		Object[] oldKeys = this.keys;
+		Object[] oldValues = this.values;
+		int[] oldHashes = this.hashes;
+		this.keys = new Object[capacity];
+		this.values = new Object[capacity];
+		this.hashes = new int[capacity];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				insert((K) oldKeys[i], (V) oldValues[i], oldHashes[i]);
+			}
+		}
+		if (StatsRecorder.ENABLED) {
+			this.stats.recordResize(start);
+		}
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		HashUtils.ensurePowerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.keys.length,
+				this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		HashUtils.trimPowerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.keys.length, this::rehash);
+	}
+
+	// Distance from the home slot of the entry in slot idx.
+	private int probeDistance(int idx) {
+		return idx - this.hashes[idx] & this.keys.length - 1;
+	}
+
+	@Override
+	public void put(K key, V value) {
+		int hash = HashUtils.mix(key.hashCode());
+		int mask = this.keys.length - 1;
+		int idx = hash & mask;
+		int dist = 0;
+		// As long as we have not passed an entry closer to its home than we are,
+		// the key may already be in the table.
+		while (this.keys[idx] != null && probeDistance(idx) >= dist) {
+			if (this.hashes[idx] == hash && this.keys[idx].equals(key)) {
+				this.values[idx] = value;
+				return;
+			}
+			idx = idx + 1 & mask;
+			dist++;
+		}
+		insert(key, value, hash);
+		this.size++;
+		if (loadFactorTooHigh()) {
+			growTable();
+		}
+	}
+
+	// Inserts a key known not to be in the table. Does not touch size.
+	@SuppressWarnings("unchecked")
+	private void insert(K key, V value, int hash) {
+		int mask = this.keys.length - 1;
+		int idx = hash & mask;
+		int dist = 0;
+		K k = key;
+		V v = value;
+		int h = hash;
+		while (this.keys[idx] != null) {
+			int existingDist = probeDistance(idx);
+			if (existingDist < dist) {
+				// Take from the rich, give to the poor.
+				K tk = (K) this.keys[idx];
+				V tv = (V) this.values[idx];
+				int th = this.hashes[idx];
+				this.keys[idx] = k;
+				this.values[idx] = v;
+				this.hashes[idx] = h;
+				k = tk;
+				v = tv;
+				h = th;
+				dist = existingDist;
+			}
+			idx = idx + 1 & mask;
+			dist++;
+		}
+		this.keys[idx] = k;
+		this.values[idx] = v;
+		this.hashes[idx] = h;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(K key) {
+		int idx = indexOf(key);
+		if (StatsRecorder.ENABLED) {
+			recordLookup(key, idx);
+		}
+		return idx >= 0 ? (V) this.values[idx] : null;
+	}
+
+	// The probes of a get() that returned slot idx. A hit compared the keys from
+	// the home slot up to idx; a miss walked until an empty slot or one with a
+	// shorter probe distance, which it did not compare.
+	private void recordLookup(K key, int idx) {
+		int hash = HashUtils.mix(key.hashCode());
+		int mask = this.keys.length - 1;
+		if (idx >= 0) {
+			this.stats.recordHit((idx - (hash & mask) & mask) + 1);
+			return;
+		}
+		int probes = 0;
+		int i = hash & mask;
+		while (this.keys[i] != null && probeDistance(i) >= probes) {
+			i = i + 1 & mask;
+			probes++;
+		}
+		this.stats.recordMiss(probes);
+	}
+
+	/*
+	 * Removes key and returns the value it was mapped to, or null if it was not
+	 * in the table.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(K key) {
+		int idx = indexOf(key);
+		if (idx < 0) {
+			return null;
+		}
+		V old = (V) this.values[idx];
+		int mask = this.keys.length - 1;
+		int next = idx + 1 & mask;
+		// Backward shift: pull every following entry of the cluster that is not
+		// in its home slot one step closer to it.
+		while (this.keys[next] != null && probeDistance(next) > 0) {
+			this.keys[idx] = this.keys[next];
+			this.values[idx] = this.values[next];
+			this.hashes[idx] = this.hashes[next];
+			idx = next;
+			next = next + 1 & mask;
+		}
+		this.keys[idx] = null;
+		this.values[idx] = null;
+		this.size--;
+		return old;
+	}
+
+	private int indexOf(K key) {
+		int hash = HashUtils.mix(key.hashCode());
+		int mask = this.keys.length - 1;
+		int idx = hash & mask;
+		int dist = 0;
+		while (this.keys[idx] != null && probeDistance(idx) >= dist) {
+			if (this.hashes[idx] == hash && this.keys[idx].equals(key)) {
+				return idx;
+			}
+			idx = idx + 1 & mask;
+			dist++;
+		}
+		return -1;
+	}
+
+	private boolean loadFactorTooHigh() {
+		return this.keys.length * MAX_LOAD_FACTOR < this.size;
+	}
+
+	@Override
+	public HashTableStats stats() {
+		return StatsRecorder.ENABLED ? this.stats.snapshot(this.size, this.keys.length) : null;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
@@ -0,0 +1,45 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class RobinHoodHash2KTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return RobinHoodHash2K::new;
+	}
+
+	@Test
+	/*
+	 * Interleaves puts and removes and checks the table against a HashMap. Since
+	 * removal shifts entries backwards, every remaining key must still be
+	 * reachable afterwards.
+	 */
+	void testRemove() {
+		SplittableRandom rng = new SplittableRandom(4);
+		RobinHoodHash2K<Integer, Integer> h = new RobinHoodHash2K<>();
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 100000; i++) {
+			Integer k = Integer.valueOf(rng.nextInt(2000));
+			if (rng.nextInt(3) == 0) {
+				assertEquals(expected.remove(k), h.remove(k));
+			} else {
+				Integer v = Integer.valueOf(rng.nextInt());
+				expected.put(k, v);
+				h.put(k, v);
+			}
+		}
+		assertEquals(expected.size(), h.size());
+		for (int k = 0; k < 2000; k++) {
+			assertEquals(expected.get(k), h.get(k));
+		}
+		assertNull(h.remove(Integer.valueOf(-1)));
+	}
+}
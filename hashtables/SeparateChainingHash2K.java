@@ -6,39 +6,74 @@ import java.util.List;
 public class SeparateChainingHash2K<K, V> implements HashTable<K, V> {
 	private static final double MAX_LOAD_FACTOR = 2;
 	private static final int INITIAL_CAPACITY = 8; // Must be a power of two.
+	// Old buckets moved per operation in ResizeMode.INCREMENTAL. Must be greater
+	// than 1 / MAX_LOAD_FACTOR so that the old table is drained before the new
+	// one fills up.
+	private static final int MIGRATION_STEP = 4;
 	private List<Entry<K, V>>[] entries;
+	// Buckets that have been converted to trees, parallel to entries. Null
+	// until the first bucket is converted, which only happens for very poorly
+	// distributed keys. A bucket is either a chain in entries or a tree here.
+	private TreeBucket<K, V>[] trees;
 	private int size;
 
+	private final ResizeMode resizeMode;
+	// While an incremental resize is in progress, the previous table and the
+	// number of its buckets that have been moved into entries. Buckets of a
+	// table created by an incremental resize are only allocated when first
+	// used, since allocating them all up front is O(n) in itself.
+	private List<Entry<K, V>>[] oldEntries;
+	private TreeBucket<K, V>[] oldTrees;
+	private int migrated;
+	// Null unless StatsRecorder.ENABLED.
+	private final StatsRecorder stats = StatsRecorder.ENABLED ? new StatsRecorder() : null;
+
 	private static class Entry<K, V> {
+		// The mixed hash of key. Lookups compare it before equals(), and
+		// relink() takes the new bucket from it instead of hashing key again.
+		public final int hash;
 		public K key;
 		public V value;
 
-		public Entry(K key, V value) {
+		public Entry(int hash, K key, V value) {
+			this.hash = hash;
 			this.key = key;
 			this.value = value;
 		}
 	}
 
-	@SuppressWarnings("unchecked")
 	public SeparateChainingHash2K() {
-		this.entries = new LinkedList[INITIAL_CAPACITY];
-		for (int i = 0; i < INITIAL_CAPACITY; i++) {
-			this.entries[i] = new LinkedList<>();
-		}
+		this(0, ResizeMode.ALL_AT_ONCE);
+	}
+
+	public SeparateChainingHash2K(ResizeMode resizeMode) {
+		this(0, resizeMode);
+	}
+
+	public SeparateChainingHash2K(int expectedSize) {
+		this(expectedSize, ResizeMode.ALL_AT_ONCE);
+	}
+
+	public SeparateChainingHash2K(int expectedSize, ResizeMode resizeMode) {
+		this.entries = newBuckets(HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY));
 		this.size = 0;
+		this.resizeMode = resizeMode;
 	}
 
 	@SuppressWarnings("unchecked")
-	private SeparateChainingHash2K(int oldCapacity) {
-		this.entries = new LinkedList[oldCapacity * 2];
-		for (int i = 0; i < this.entries.length; i++) {
-			this.entries[i] = new LinkedList<>();
+	private static <K, V> List<Entry<K, V>>[] newBuckets(int capacity) {
+		List<Entry<K, V>>[] buckets = new LinkedList[capacity];
+		for (int i = 0; i < capacity; i++) {
+			buckets[i] = new LinkedList<>();
 		}
-		this.size = 0;
+		return buckets;
 	}
 
 	@Override
 	public void put(K key, V value) {
+		if (this.oldEntries != null) {
+			migrateStep();
+		}
 		// In general:
 		// int hash = key.hashCode() % arr.length;
 		//
@@ -50,34 +85,188 @@ public class SeparateChainingHash2K<K, V> implements HashTable<K, V> {
 		// If the hash function is good, 2^k will work well.
 		// If the hash function is not so good (how do we know?),
 		// a prime (or at least an odd number) is a better choice for m.
-		int hash = HashUtils.mix(key.hashCode()) & this.entries.length - 1;
-		for (Entry<K, V> e : this.entries[hash]) {
-			if (e.key.equals(key)) {
+		int mixed = HashUtils.mix(key.hashCode());
+		int hash = mixed & this.entries.length - 1;
+		if (this.trees != null && this.trees[hash] != null) {
+			if (!this.trees[hash].put(mixed, key, value)) {
+				return;
+			}
+		} else {
+			Entry<K, V> e = findInChain(this.entries[hash], mixed, key);
+			if (e != null) {
 				e.value = value;
 				return;
 			}
+			addToChain(hash, new Entry<>(mixed, key, value));
+		}
+		// A key still waiting in the old table is already counted.
+		if (this.oldEntries == null || !contains(this.oldEntries, this.oldTrees, mixed, key)) {
+			this.size++;
 		}
-		this.entries[hash].add(new Entry<>(key, value));
-		this.size++;
 		if (loadFactorTooHigh()) {
 			growTable();
 		}
 	}
 
+	private void addToChain(int hash, Entry<K, V> e) {
+		List<Entry<K, V>> bucket = this.entries[hash];
+		if (bucket == null) {
+			bucket = new LinkedList<>();
+			this.entries[hash] = bucket;
+		}
+		bucket.add(e);
+		if (bucket.size() > TreeBucket.TREEIFY_THRESHOLD) {
+			treeify(hash);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void treeify(int hash) {
+		if (this.trees == null) {
+			this.trees = new TreeBucket[this.entries.length];
+		}
+		TreeBucket<K, V> tree = new TreeBucket<>();
+		for (Entry<K, V> e : this.entries[hash]) {
+			tree.put(e.hash, e.key, e.value);
+		}
+		this.trees[hash] = tree;
+		this.entries[hash] = null;
+	}
+
+	// Moves the next MIGRATION_STEP buckets of oldEntries into entries.
+	private void migrateStep() {
+		int end = Math.min(this.migrated + MIGRATION_STEP, this.oldEntries.length);
+		for (int i = this.migrated; i < end; i++) {
+			if (this.oldTrees != null && this.oldTrees[i] != null) {
+				this.oldTrees[i].forEach((h, k, v) -> migrate(new Entry<>(h, k, v)));
+				this.oldTrees[i] = null;
+			} else if (this.oldEntries[i] != null) {
+				for (Entry<K, V> e : this.oldEntries[i]) {
+					migrate(e);
+				}
+				this.oldEntries[i] = null;
+			}
+		}
+		this.migrated = end;
+		if (end == this.oldEntries.length) {
+			this.oldEntries = null;
+			this.oldTrees = null;
+		}
+	}
+
+	private void migrate(Entry<K, V> e) {
+		// If the key has been put since the resize began, that value wins.
+		if (!contains(this.entries, this.trees, e.hash, e.key)) {
+			relink(e);
+		}
+	}
+
+	// Adds an entry whose key is known not to be in entries, without comparing
+	// keys.
+	private void relink(Entry<K, V> e) {
+		int hash = e.hash & this.entries.length - 1;
+		if (this.trees != null && this.trees[hash] != null) {
+			this.trees[hash].put(e.hash, e.key, e.value);
+		} else {
+			addToChain(hash, e);
+		}
+	}
+
+	private static <K, V> Entry<K, V> findInChain(List<Entry<K, V>> bucket, int mixed, K key) {
+		if (bucket != null) {
+			for (Entry<K, V> e : bucket) {
+				if (e.hash == mixed && e.key.equals(key)) {
+					return e;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static <K, V> boolean contains(List<Entry<K, V>>[] entries, TreeBucket<K, V>[] trees, int mixed,
+			K key) {
+		int hash = mixed & entries.length - 1;
+		if (trees != null && trees[hash] != null) {
+			return trees[hash].containsKey(mixed, key);
+		}
+		return findInChain(entries[hash], mixed, key) != null;
+	}
+
+	private static <K, V> V lookup(List<Entry<K, V>>[] entries, TreeBucket<K, V>[] trees, int mixed, K key) {
+		int hash = mixed & entries.length - 1;
+		if (trees != null && trees[hash] != null) {
+			return trees[hash].get(mixed, key);
+		}
+		Entry<K, V> e = findInChain(entries[hash], mixed, key);
+		return e != null ? e.value : null;
+	}
+
+	@SuppressWarnings("unchecked")
 	private void growTable() {
-		// Let n denote the new *capacity* and m the *size* of the current table.
-		// Create a new table, twice the size of the current table (in O(n)).
-		SeparateChainingHash2K<K, V> newTable = new SeparateChainingHash2K<>(this.entries.length);
+		if (this.resizeMode == ResizeMode.INCREMENTAL) {
+			// Cannot happen with a sufficiently large MIGRATION_STEP, but never
+			// keep more than two generations around.
+			finishMigration();
+			long start = StatsRecorder.ENABLED ? System.nanoTime() : 0;
+			this.oldEntries = this.entries;
+			this.oldTrees = this.trees;
+			this.migrated = 0;
+			this.entries = new LinkedList[this.oldEntries.length * 2];
+			this.trees = null;
+			if (StatsRecorder.ENABLED) {
+				this.stats.recordResize(start);
+			}
+			return;
+		}
+		rehash(this.entries.length * 2);
+	}
 
-		// Add all entries from the current table to the new table. (In O(max(n, m)).
-		for (List<Entry<K, V>> e : this.entries) {
-			if (e != null) {
-				e.forEach(x -> newTable.put(x.key, x.value));
+	// Entries are relinked along with their hashes, from chains and tree
+	// buckets alike. A chain that is still too long in the new table becomes a
+	// tree again.
+	private void rehash(int capacity) {
+		long start = StatsRecorder.ENABLED ? System.nanoTime() : 0;
+		List<Entry<K, V>>[] oldEntries = this.entries;
+		TreeBucket<K, V>[] oldTrees = this.trees;
+		this.entries = newBuckets(capacity);
+		this.trees = null;
+		for (List<Entry<K, V>> bucket : oldEntries) {
+			if (bucket != null) {
+				for (Entry<K, V> e : bucket) {
+					relink(e);
+				}
 			}
 		}
-		// Finally, assign the new set of entries to the current set of entries.
-		// In O(1).
-		this.entries = newTable.entries;
+		if (oldTrees != null) {
+			for (TreeBucket<K, V> t : oldTrees) {
+				if (t != null) {
+					t.forEach((h, k, v) -> relink(new Entry<>(h, k, v)));
+				}
+			}
+		}
+		if (StatsRecorder.ENABLED) {
+			this.stats.recordResize(start);
+		}
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		finishMigration();
+		HashUtils.ensurePowerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.entries.length,
+				this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		finishMigration();
+		HashUtils.trimPowerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.entries.length,
+				this::rehash);
+	}
+
+	private void finishMigration() {
+		while (this.oldEntries != null) {
+			migrateStep();
+		}
 	}
 
 	private boolean loadFactorTooHigh() {
@@ -86,13 +275,49 @@ public class SeparateChainingHash2K<K, V> implements HashTable<K, V> {
 
 	@Override
 	public V get(K key) {
-		int hash = HashUtils.mix(key.hashCode()) & this.entries.length - 1;
-		for (Entry<K, V> e : this.entries[hash]) {
-			if (e.key.equals(key)) {
-				return e.value;
+		int mixed = HashUtils.mix(key.hashCode());
+		V value;
+		if (this.oldEntries != null) {
+			migrateStep();
+		}
+		if (this.oldEntries != null && !contains(this.entries, this.trees, mixed, key)) {
+			value = lookup(this.oldEntries, this.oldTrees, mixed, key);
+		} else {
+			value = lookup(this.entries, this.trees, mixed, key);
+		}
+		if (StatsRecorder.ENABLED) {
+			recordGet(mixed, key, value != null);
+		}
+		return value;
+	}
+
+	// Records the number of entries get() compared in the bucket of the current
+	// table, counting a tree bucket as one. The lookups above are shared with
+	// put() and the migration, so this walks the chain again; that only costs
+	// anything with recording on.
+	private void recordGet(int mixed, K key, boolean hit) {
+		int hash = mixed & this.entries.length - 1;
+		int probes = 0;
+		if (this.trees != null && this.trees[hash] != null) {
+			probes = 1;
+		} else if (this.entries[hash] != null) {
+			for (Entry<K, V> e : this.entries[hash]) {
+				probes++;
+				if (e.hash == mixed && e.key.equals(key)) {
+					break;
+				}
 			}
 		}
-		return null;
+		if (hit) {
+			this.stats.recordHit(probes);
+		} else {
+			this.stats.recordMiss(probes);
+		}
+	}
+
+	@Override
+	public HashTableStats stats() {
+		return StatsRecorder.ENABLED ? this.stats.snapshot(this.size, this.entries.length) : null;
 	}
 
 	@Override
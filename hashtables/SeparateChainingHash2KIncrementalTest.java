@@ -0,0 +1,14 @@
+package hashtables;
+
+class SeparateChainingHash2KIncrementalTest extends TreeifyingHashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return new HashTableFactory() {
+			@Override
+			public <K, V> HashTable<K, V> newInstance() {
+				return new SeparateChainingHash2K<>(ResizeMode.INCREMENTAL);
+			}
+		};
+	}
+}
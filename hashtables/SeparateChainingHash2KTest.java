@@ -1,6 +1,6 @@
 package hashtables;
 
-class SeparateChainingHash2KTest extends HashTableTest {
+class SeparateChainingHash2KTest extends TreeifyingHashTableTest {
 
 	@Override
 	HashTableFactory getHashTableFactory() {
@@ -7,68 +7,146 @@ public class SeparateChainingHashPrime<K, V> implements HashTable<K, V> {
 	private static final double MAX_LOAD_FACTOR = 2;
 	private static final int INITIAL_CAPACITY = 8;
 	private List<Entry<K, V>>[] entries;
+	// Buckets that have been converted to trees, parallel to entries. Null
+	// until the first bucket is converted, which only happens for very poorly
+	// distributed keys. A bucket is either a chain in entries or a tree here.
+	private TreeBucket<K, V>[] trees;
 	private int size;
+	// HashUtils.fastModMultiplier(entries.length), so that we do not need an
+	// integer division to map a hash to a bucket.
+	private long modMultiplier;
+	// Null unless StatsRecorder.ENABLED.
+	private final StatsRecorder stats = StatsRecorder.ENABLED ? new StatsRecorder() : null;
 
 	private static class Entry<K, V> {
+		// Mixed hash of key, kept as in SeparateChainingHash2K.
+		public final int hash;
 		public K key;
 		public V value;
 
-		public Entry(K key, V value) {
+		public Entry(int hash, K key, V value) {
+			this.hash = hash;
 			this.key = key;
 			this.value = value;
 		}
 	}
 
-	@SuppressWarnings("unchecked")
 	public SeparateChainingHashPrime() {
-		this.entries = new LinkedList[INITIAL_CAPACITY];
-		for (int i = 0; i < INITIAL_CAPACITY; i++) {
-			this.entries[i] = new LinkedList<>();
-		}
+		this(0);
+	}
+
+	/*
+	 * The capacity is still 8 * 2^k (see growTable()).
+	 */
+	public SeparateChainingHashPrime(int expectedSize) {
+		allocate(HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY));
 		this.size = 0;
 	}
 
 	@SuppressWarnings("unchecked")
-	private SeparateChainingHashPrime(int oldCapacity) {
-		this.entries = new LinkedList[oldCapacity * 2];
+	private void allocate(int capacity) {
+		this.entries = new LinkedList[capacity];
+		this.modMultiplier = HashUtils.fastModMultiplier(this.entries.length);
 		for (int i = 0; i < this.entries.length; i++) {
 			this.entries[i] = new LinkedList<>();
 		}
-		this.size = 0;
+		this.trees = null;
 	}
 
 	@Override
 	public void put(K key, V value) {
+		int mixed = HashUtils.mix(key.hashCode());
 		// Must mask the most significant bit to avoid negative table indices.
-		int hash = (HashUtils.mix(key.hashCode()) & 0x7FFFFFFF) % this.entries.length;
+		int hash = HashUtils.fastMod(mixed & 0x7FFFFFFF, this.modMultiplier, this.entries.length);
 
-		for (Entry<K, V> e : this.entries[hash]) {
-			if (e.key.equals(key)) {
-				e.value = value;
+		if (this.trees != null && this.trees[hash] != null) {
+			if (!this.trees[hash].put(mixed, key, value)) {
 				return;
 			}
+		} else {
+			for (Entry<K, V> e : this.entries[hash]) {
+				if (e.hash == mixed && e.key.equals(key)) {
+					e.value = value;
+					return;
+				}
+			}
+			addToChain(hash, new Entry<>(mixed, key, value));
 		}
-		this.entries[hash].add(new Entry<>(key, value));
 		this.size++;
 		if (loadFactorTooHigh()) {
 			growTable();
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private void treeify(int hash) {
+		if (this.trees == null) {
+			this.trees = new TreeBucket[this.entries.length];
+		}
+		TreeBucket<K, V> tree = new TreeBucket<>();
+		for (Entry<K, V> e : this.entries[hash]) {
+			tree.put(e.hash, e.key, e.value);
+		}
+		this.trees[hash] = tree;
+		this.entries[hash].clear();
+	}
+
+	private void addToChain(int hash, Entry<K, V> e) {
+		this.entries[hash].add(e);
+		if (this.entries[hash].size() > TreeBucket.TREEIFY_THRESHOLD) {
+			treeify(hash);
+		}
+	}
+
 	private void growTable() {
 		// Let n denote the new *capacity* and m the *size* of the current table.
-		// Create a new table, twice the size of the current table (in O(n)).
-		SeparateChainingHashPrime<K, V> newTable = new SeparateChainingHashPrime<>(this.entries.length);
+		// Move everything into a new table, twice the size of the current table.
+		// In O(max(n, m)).
+		rehash(this.entries.length * 2);
+	}
 
-		// Add all entries from the current table to the new table. (In O(max(n, m)).
-		for (List<Entry<K, V>> e : this.entries) {
-			if (e != null) {
-				e.forEach(x -> newTable.put(x.key, x.value));
+	// As in SeparateChainingHash2K, with a new modMultiplier for the capacity.
+	private void rehash(int capacity) {
+		long start = StatsRecorder.ENABLED ? System.nanoTime() : 0;
+		List<Entry<K, V>>[] oldEntries = this.entries;
+		TreeBucket<K, V>[] oldTrees = this.trees;
+		allocate(capacity);
+		for (List<Entry<K, V>> bucket : oldEntries) {
+			for (Entry<K, V> e : bucket) {
+				relink(e);
 			}
 		}
-		// Finally, assign the new set of entries to the current set of entries.
-		// In O(1).
-		this.entries = newTable.entries;
+		if (oldTrees != null) {
+			for (TreeBucket<K, V> t : oldTrees) {
+				if (t != null) {
+					t.forEach((h, k, v) -> relink(new Entry<>(h, k, v)));
+				}
+			}
+		}
+		if (StatsRecorder.ENABLED) {
+			this.stats.recordResize(start);
+		}
+	}
+
+	private void relink(Entry<K, V> e) {
+		int hash = HashUtils.fastMod(e.hash & 0x7FFFFFFF, this.modMultiplier, this.entries.length);
+		if (this.trees != null && this.trees[hash] != null) {
+			this.trees[hash].put(e.hash, e.key, e.value);
+		} else {
+			addToChain(hash, e);
+		}
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		HashUtils.ensurePowerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.entries.length,
+				this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		HashUtils.trimPowerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.entries.length,
+				this::rehash);
 	}
 
 	private boolean loadFactorTooHigh() {
@@ -77,16 +155,42 @@ public class SeparateChainingHashPrime<K, V> implements HashTable<K, V> {
 
 	@Override
 	public V get(K key) {
+		int mixed = HashUtils.mix(key.hashCode());
 		// Must mask the most significant bit to avoid negative table indices.
-		int hash = (HashUtils.mix(key.hashCode()) & 0x7FFFFFFF) % this.entries.length;
+		int hash = HashUtils.fastMod(mixed & 0x7FFFFFFF, this.modMultiplier, this.entries.length);
+		if (this.trees != null && this.trees[hash] != null) {
+			V value = this.trees[hash].get(mixed, key);
+			if (StatsRecorder.ENABLED) {
+				// A tree bucket counts as one probe, whatever its depth.
+				if (value != null) {
+					this.stats.recordHit(1);
+				} else {
+					this.stats.recordMiss(1);
+				}
+			}
+			return value;
+		}
+		int probes = 0;
 		for (Entry<K, V> e : this.entries[hash]) {
-			if (e.key.equals(key)) {
+			probes++;
+			if (e.hash == mixed && e.key.equals(key)) {
+				if (StatsRecorder.ENABLED) {
+					this.stats.recordHit(probes);
+				}
 				return e.value;
 			}
 		}
+		if (StatsRecorder.ENABLED) {
+			this.stats.recordMiss(probes);
+		}
 		return null;
 	}
 
+	@Override
+	public HashTableStats stats() {
+		return StatsRecorder.ENABLED ? this.stats.snapshot(this.size, this.entries.length) : null;
+	}
+
 	@Override
 	public int size() {
 		return this.size;
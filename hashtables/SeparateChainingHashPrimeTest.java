@@ -1,6 +1,6 @@
 package hashtables;
 
-class SeparateChainingHashPrimeTest extends HashTableTest {
+class SeparateChainingHashPrimeTest extends TreeifyingHashTableTest {
 
 	@Override
 	HashTableFactory getHashTableFactory() {
@@ -0,0 +1,9 @@
+package hashtables;
+
+class SeparateChainingIntrusiveHash2KTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return SeparateChainingIntrusiveHash2K::new;
+	}
+}
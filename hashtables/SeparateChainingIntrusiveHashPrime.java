@@ -0,0 +1,124 @@
+package hashtables;
+
+/*
+ * Same as SeparateChainingHashPrime, but the chains are made of the entries
+ * themselves (Entry.next) instead of a java.util.LinkedList per bucket. An
+ * empty bucket is just null, so creating and growing the table allocates
+ * nothing but the bucket array, a put allocates a single Entry and a lookup
+ * allocates nothing (no iterator).
+ *
+ * The capacity starts at 8 and doubles, as in SeparateChainingHashPrime, so the
+ * two only differ in how the chains are stored.
+ */
+public class SeparateChainingIntrusiveHashPrime<K, V> implements HashTable<K, V> {
+	private static final double MAX_LOAD_FACTOR = 2;
+	private static final int INITIAL_CAPACITY = 8;
+	private Entry<K, V>[] entries;
+	private int size;
+	// HashUtils.fastModMultiplier(entries.length), so that we do not need an
+	// integer division to map a hash to a bucket.
+	private long modMultiplier;
+
+	private static class Entry<K, V> {
+		// Mixed hash of key, kept as in SeparateChainingHash2K.
+		public final int hash;
+		public final K key;
+		public V value;
+		public Entry<K, V> next;
+
+		public Entry(int hash, K key, V value, Entry<K, V> next) {
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+			this.next = next;
+		}
+	}
+
+	public SeparateChainingIntrusiveHashPrime() {
+		this(0);
+	}
+
+	@SuppressWarnings("unchecked")
+	public SeparateChainingIntrusiveHashPrime(int expectedSize) {
+		this.entries = new Entry[HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY)];
+		this.modMultiplier = HashUtils.fastModMultiplier(this.entries.length);
+		this.size = 0;
+	}
+
+	@Override
+	public void put(K key, V value) {
+		int mixed = HashUtils.mix(key.hashCode());
+		// Must mask the most significant bit to avoid negative table indices.
+		int hash = HashUtils.fastMod(mixed & 0x7FFFFFFF, this.modMultiplier, this.entries.length);
+		for (Entry<K, V> e = this.entries[hash]; e != null; e = e.next) {
+			if (e.hash == mixed && e.key.equals(key)) {
+				e.value = value;
+				return;
+			}
+		}
+		// Prepending is cheaper than walking to the end again.
+		this.entries[hash] = new Entry<>(mixed, key, value, this.entries[hash]);
+		this.size++;
+		if (loadFactorTooHigh()) {
+			growTable();
+		}
+	}
+
+	private void growTable() {
+		rehash(this.entries.length * 2);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void rehash(int capacity) {
+		Entry<K, V>[] newEntries = new Entry[capacity];
+		long newMultiplier = HashUtils.fastModMultiplier(capacity);
+		// Relink the existing entries; their keys are known to be distinct, so
+		// there is nothing to compare.
+		for (Entry<K, V> e : this.entries) {
+			while (e != null) {
+				Entry<K, V> next = e.next;
+				int hash = HashUtils.fastMod(e.hash & 0x7FFFFFFF, newMultiplier, capacity);
+				e.next = newEntries[hash];
+				newEntries[hash] = e;
+				e = next;
+			}
+		}
+		this.entries = newEntries;
+		this.modMultiplier = newMultiplier;
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		HashUtils.ensurePowerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.entries.length,
+				this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		HashUtils.trimPowerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.entries.length,
+				this::rehash);
+	}
+
+	private boolean loadFactorTooHigh() {
+		return this.entries.length * MAX_LOAD_FACTOR < this.size;
+	}
+
+	@Override
+	public V get(K key) {
+		int mixed = HashUtils.mix(key.hashCode());
+		// Must mask the most significant bit to avoid negative table indices.
+		int hash = HashUtils.fastMod(mixed & 0x7FFFFFFF, this.modMultiplier, this.entries.length);
+		for (Entry<K, V> e = this.entries[hash]; e != null; e = e.next) {
+			if (e.hash == mixed && e.key.equals(key)) {
+				return e.value;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
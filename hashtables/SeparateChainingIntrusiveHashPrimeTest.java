@@ -0,0 +1,9 @@
+package hashtables;
+
+class SeparateChainingIntrusiveHashPrimeTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return SeparateChainingIntrusiveHashPrime::new;
+	}
+}
@@ -0,0 +1,85 @@
+package hashtables;
+
+/*
+ * Splits the keys over 2^shardBits independent inner tables (shards). The top
+ * shardBits bits of the mixed hash select the shard; the inner tables index
+ * with the low bits, so the keys of a shard are still spread over all of its
+ * slots.
+ *
+ * Every shard grows on its own, so a resize only ever copies 1/2^shardBits of
+ * the data. The table itself is exactly as thread-safe as its shards: with
+ * single-threaded shards, route each key with shardOf() and let one thread
+ * own every shard (and only that thread touch it through shard()), and no two
+ * threads ever write to the same cache line.
+ */
+public class ShardedHashTable<K, V> implements HashTable<K, V> {
+	private final HashTable<K, V>[] shards;
+	private final int shardShift;
+
+	/*
+	 * Creates 2^shardBits shards, each a new instance from factory.
+	 */
+	@SuppressWarnings("unchecked")
+	public ShardedHashTable(HashTableFactory factory, int shardBits) {
+		if (shardBits < 0 || shardBits > 16) {
+			throw new IllegalArgumentException("shardBits must be on [0, 16]: " + shardBits);
+		}
+		this.shards = new HashTable[1 << shardBits];
+		for (int i = 0; i < this.shards.length; i++) {
+			this.shards[i] = factory.newInstance();
+		}
+		this.shardShift = Integer.SIZE - shardBits;
+	}
+
+	/*
+	 * Returns the index of the shard key belongs to.
+	 */
+	public int shardOf(K key) {
+		// Shifting the int by 32 would be a shift by 0, hence the long.
+		return (int) ((HashUtils.mix(key.hashCode()) & 0xFFFFFFFFL) >>> this.shardShift);
+	}
+
+	public HashTable<K, V> shard(int index) {
+		return this.shards[index];
+	}
+
+	public int shards() {
+		return this.shards.length;
+	}
+
+	@Override
+	public void put(K key, V value) {
+		this.shards[shardOf(key)].put(key, value);
+	}
+
+	@Override
+	public V get(K key) {
+		return this.shards[shardOf(key)].get(key);
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		// Assumes the keys spread evenly, as they do with a decent hash.
+		int perShard = (expectedSize + this.shards.length - 1) / this.shards.length;
+		for (HashTable<K, V> s : this.shards) {
+			s.ensureCapacity(perShard);
+		}
+	}
+
+	@Override
+	public void trimToSize() {
+		for (HashTable<K, V> s : this.shards) {
+			s.trimToSize();
+		}
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (HashTable<K, V> s : this.shards) {
+			size += s.size();
+		}
+		return size;
+	}
+
+}
@@ -0,0 +1,58 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ShardedHashTableTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return new HashTableFactory() {
+			@Override
+			public <K, V> HashTable<K, V> newInstance() {
+				return new ShardedHashTable<>(OpenAddressingHash2K::new, 3);
+			}
+		};
+	}
+
+	@Test
+	/*
+	 * Every key must end up in the shard shardOf() names, and nowhere else, and
+	 * all shards should get a fair share of the keys.
+	 */
+	void testRouting() {
+		ShardedHashTable<Integer, Integer> h = new ShardedHashTable<>(OpenAddressingHash2K::new, 2);
+		for (int k = 0; k < 10000; k++) {
+			h.put(k, k);
+		}
+		for (int k = 0; k < 10000; k++) {
+			int shard = h.shardOf(k);
+			for (int i = 0; i < h.shards(); i++) {
+				if (i == shard) {
+					assertEquals(Integer.valueOf(k), h.shard(i).get(k));
+				} else {
+					assertNull(h.shard(i).get(k));
+				}
+			}
+		}
+		for (int i = 0; i < h.shards(); i++) {
+			assertTrue(h.shard(i).size() > 2000);
+		}
+	}
+
+	@Test
+	/*
+	 * With a single shard, everything goes to shard 0.
+	 */
+	void testSingleShard() {
+		ShardedHashTable<Integer, Integer> h = new ShardedHashTable<>(OpenAddressingHash2K::new, 0);
+		for (int k = 0; k < 1000; k++) {
+			assertEquals(0, h.shardOf(k));
+			h.put(k, k);
+		}
+		assertEquals(1000, h.shard(0).size());
+	}
+}
@@ -0,0 +1,11 @@
+package hashtables;
+
+/*
+ * Like HashTableFactory, but for tables presized to hold expectedSize entries
+ * without growing. Typically a reference to a constructor taking an int, or
+ * to ConcurrentOpenAddressingHash2K.withExpectedSize(), whose constructor
+ * taking an int takes the number of segment bits instead.
+ */
+public interface SizedHashTableFactory {
+	<K, V> HashTable<K, V> newInstance(int expectedSize);
+}
@@ -0,0 +1,245 @@
+package hashtables;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Saves open addressing tables to files that can be loaded again without
+ * putting a single key: the file holds the slot layout itself, and loading
+ * maps it into memory and serves get() straight from the mapping. Loaded
+ * tables are read-only, and only the pages that lookups touch are ever read
+ * from disk.
+ *
+ * The format, all little-endian:
+ *
+ * A HEADER_BYTES header: MAGIC, VERSION, the kind of table, HASH_FUNCTION,
+ * the ProbeStrategy ordinal, capacity, size, whether the table has the key 0
+ * and its value (long keys only), and the file length.
+ *
+ * capacity slots of SLOT_BYTES, in the order of the table's slots:
+ *
+ * - LONG_LONG: the key and the value, as in LongLongOpenAddressingHash2K. The
+ * key 0 marks an empty slot.
+ *
+ * - STRING_STRING: the file position of the entry's record (0 marks an empty
+ * slot), the mixed hash of the key and its length. The records follow the
+ * slots: the UTF-16 chars of the key, the length of the value (-1 for null)
+ * and its chars. No record crosses a MappedFile region.
+ *
+ * The probe sequences in the file are only valid for the hash function that
+ * laid them out, so the header records which one that was (there is no
+ * per-table seed; HashUtils.mix is fixed) and loading refuses any other, as it
+ * refuses other versions of the format.
+ */
+public enum Snapshots {
+	;
+
+	static final int MAGIC = 0x53425048; // "HPBS" in little-endian order.
+	static final int VERSION = 1;
+	// HashUtils.mix() over String.hashCode(), or over the long key.
+	static final int HASH_FUNCTION = 1;
+	static final int LONG_LONG = 1;
+	static final int STRING_STRING = 2;
+	static final int HEADER_BYTES = 64;
+	static final int SLOT_BYTES = 16;
+
+	// The header fields, as positions in the file.
+	static final int KIND = 8;
+	static final int HASH = 12;
+	static final int PROBE_STRATEGY = 16;
+	static final int CAPACITY = 20;
+	static final int SIZE = 24;
+	static final int HAS_ZERO_KEY = 28;
+	static final int ZERO_VALUE = 32;
+	static final int LENGTH = 40;
+
+	public static void save(LongLongOpenAddressingHash2K table, Path file) throws IOException {
+		int capacity = table.capacity();
+		try (Writer out = new Writer(file)) {
+			long length = HEADER_BYTES + (long) capacity * SLOT_BYTES;
+			out.writeHeader(LONG_LONG, ProbeStrategy.LINEAR, capacity, table.size(), table.containsKey(0),
+					table.getOrDefault(0, 0), length);
+			for (int i = 0; i < capacity; i++) {
+				out.putLong(table.keyAt(i));
+				out.putLong(table.valueAt(i));
+			}
+		}
+	}
+
+	public static void save(OpenAddressingHash2K<String, String> table, Path file) throws IOException {
+		int capacity = table.capacity();
+		long recordsStart = HEADER_BYTES + (long) capacity * SLOT_BYTES;
+		// First pass: the slots, with the positions the records will get.
+		long pos = recordsStart;
+		for (int i = 0; i < capacity; i++) {
+			String key = table.keyAt(i);
+			if (key != null) {
+				pos = recordStart(pos, key, table.valueAt(i)) + recordBytes(key, table.valueAt(i));
+			}
+		}
+		try (Writer out = new Writer(file)) {
+			out.writeHeader(STRING_STRING, table.probeStrategy(), capacity, table.size(), false, 0, pos);
+			pos = recordsStart;
+			for (int i = 0; i < capacity; i++) {
+				String key = table.keyAt(i);
+				if (key != null) {
+					pos = recordStart(pos, key, table.valueAt(i));
+					out.putLong(pos);
+					out.putInt(HashUtils.mix(key.hashCode()));
+					out.putInt(key.length());
+					pos += recordBytes(key, table.valueAt(i));
+				} else {
+					out.putLong(0);
+					out.putLong(0);
+				}
+			}
+			// Second pass: the records, at the same positions.
+			for (int i = 0; i < capacity; i++) {
+				String key = table.keyAt(i);
+				if (key != null) {
+					String value = table.valueAt(i);
+					out.padTo(recordStart(out.position(), key, value));
+					out.putChars(key);
+					out.putInt(value != null ? value.length() : -1);
+					if (value != null) {
+						out.putChars(value);
+					}
+				}
+			}
+		}
+	}
+
+	private static long recordBytes(String key, String value) {
+		return 2L * key.length() + Integer.BYTES + (value != null ? 2L * value.length() : 0);
+	}
+
+	// Where a record that would start at pos goes: pos, or the start of the
+	// next region if it would cross into it.
+	private static long recordStart(long pos, String key, String value) throws IOException {
+		long bytes = recordBytes(key, value);
+		if (bytes > MappedFile.REGION_BYTES) {
+			throw new IOException("Entry of " + bytes + " bytes is too large for a snapshot");
+		}
+		long end = pos + bytes - 1;
+		return pos >>> MappedFile.REGION_SHIFT == end >>> MappedFile.REGION_SHIFT ? pos
+				: end >>> MappedFile.REGION_SHIFT << MappedFile.REGION_SHIFT;
+	}
+
+	/*
+	 * Maps a file written by save(LongLongOpenAddressingHash2K, Path).
+	 */
+	public static MappedLongLongHash2K loadLongLong(Path file) throws IOException {
+		return new MappedLongLongHash2K(map(file, LONG_LONG));
+	}
+
+	/*
+	 * Maps a file written by save(OpenAddressingHash2K, Path).
+	 */
+	public static MappedStringHash2K loadString(Path file) throws IOException {
+		return new MappedStringHash2K(map(file, STRING_STRING));
+	}
+
+	private static MappedFile map(Path file, int kind) throws IOException {
+		MappedFile f = new MappedFile(file);
+		String problem = null;
+		if (f.length() < HEADER_BYTES || f.getInt(0) != MAGIC) {
+			problem = "is not a table snapshot";
+		} else if (f.getInt(4) != VERSION) {
+			problem = "has version " + f.getInt(4) + ", expected " + VERSION;
+		} else if (f.getInt(KIND) != kind) {
+			problem = "holds a different kind of table";
+		} else if (f.getInt(HASH) != HASH_FUNCTION) {
+			problem = "was laid out with another hash function";
+		} else if (f.getLong(LENGTH) != f.length()) {
+			problem = "is truncated";
+		}
+		if (problem != null) {
+			f.unmap();
+			throw new IOException(file + " " + problem);
+		}
+		return f;
+	}
+
+	// Buffers the writes to the file.
+	private static final class Writer implements AutoCloseable {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+		private long position;
+
+		Writer(Path file) throws IOException {
+			this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		}
+
+		void writeHeader(int kind, ProbeStrategy probeStrategy, int capacity, int size, boolean hasZeroKey,
+				long zeroValue, long length) throws IOException {
+			putInt(MAGIC);
+			putInt(VERSION);
+			putInt(kind);
+			putInt(HASH_FUNCTION);
+			putInt(probeStrategy.ordinal());
+			putInt(capacity);
+			putInt(size);
+			putInt(hasZeroKey ? 1 : 0);
+			putLong(zeroValue);
+			putLong(length);
+			padTo(HEADER_BYTES);
+		}
+
+		long position() {
+			return this.position;
+		}
+
+		private void reserve(int bytes) throws IOException {
+			if (this.buffer.remaining() < bytes) {
+				flush();
+			}
+			this.position += bytes;
+		}
+
+		void putLong(long v) throws IOException {
+			reserve(Long.BYTES);
+			this.buffer.putLong(v);
+		}
+
+		void putInt(int v) throws IOException {
+			reserve(Integer.BYTES);
+			this.buffer.putInt(v);
+		}
+
+		void putChars(String s) throws IOException {
+			for (int i = 0; i < s.length(); i++) {
+				reserve(Character.BYTES);
+				this.buffer.putChar(s.charAt(i));
+			}
+		}
+
+		void padTo(long pos) throws IOException {
+			while (this.position < pos) {
+				reserve(1);
+				this.buffer.put((byte) 0);
+			}
+		}
+
+		private void flush() throws IOException {
+			this.buffer.flip();
+			while (this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+			this.buffer.clear();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				flush();
+			} finally {
+				this.channel.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotsTest {
+	private static final int KEYS = 20000;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	/*
+	 * A saved and loaded long table holds the same keys and values, the zero
+	 * key included.
+	 */
+	void testLongLong() throws IOException {
+		SplittableRandom rng = new SplittableRandom(1);
+		LongLongOpenAddressingHash2K h = new LongLongOpenAddressingHash2K();
+		Map<Long, Long> expected = new HashMap<>();
+		for (int i = 0; i < KEYS; i++) {
+			long k = rng.nextLong(KEYS) << 33;
+			long v = rng.nextLong();
+			h.put(k, v);
+			expected.put(k, v);
+		}
+		assertTrue(expected.containsKey(0L));
+		Path file = this.dir.resolve("ll.snapshot");
+		Snapshots.save(h, file);
+		try (MappedLongLongHash2K m = Snapshots.loadLongLong(file)) {
+			assertEquals(expected.size(), m.size());
+			for (Map.Entry<Long, Long> e : expected.entrySet()) {
+				assertEquals(e.getValue(), m.get(e.getKey()));
+				assertEquals(e.getValue().longValue(), m.getOrDefault(e.getKey().longValue(), -1));
+			}
+			assertFalse(m.containsKey(-42));
+			assertNull(m.get(Long.valueOf(-42)));
+		}
+	}
+
+	@Test
+	/*
+	 * A saved and loaded String table holds the same keys and values, for
+	 * every probe strategy, and also when saved in the middle of an incremental
+	 * resize.
+	 */
+	void testString() throws IOException {
+		for (ProbeStrategy probeStrategy : ProbeStrategy.values()) {
+			for (ResizeMode resizeMode : ResizeMode.values()) {
+				OpenAddressingHash2K<String, String> h = new OpenAddressingHash2K<>(0, resizeMode, probeStrategy);
+				Map<String, String> expected = new HashMap<>();
+				for (int i = 0; i < KEYS; i++) {
+					String k = "k" + i * 7;
+					// Some values are null, some empty, some not ASCII.
+					String v = i % 10 == 0 ? null : i % 10 == 1 ? "" : "vé€" + i;
+					h.put(k, v);
+					expected.put(k, v);
+				}
+				Path file = this.dir.resolve("ss.snapshot");
+				Snapshots.save(h, file);
+				try (MappedStringHash2K m = Snapshots.loadString(file)) {
+					assertEquals(expected.size(), m.size());
+					for (Map.Entry<String, String> e : expected.entrySet()) {
+						assertEquals(e.getValue(), m.get(e.getKey()));
+						assertTrue(m.containsKey(e.getKey()));
+					}
+					for (int i = 0; i < KEYS; i++) {
+						assertFalse(m.containsKey("k" + (i * 7 + 1)));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	/*
+	 * Loading refuses files it cannot serve lookups from.
+	 */
+	void testRejected() throws IOException {
+		Path file = this.dir.resolve("ll.snapshot");
+		LongLongOpenAddressingHash2K h = new LongLongOpenAddressingHash2K();
+		h.put(1L, 2L);
+		Snapshots.save(h, file);
+		assertThrows(IOException.class, () -> Snapshots.loadString(file));
+		patchInt(file, 4, Snapshots.VERSION + 1);
+		assertThrows(IOException.class, () -> Snapshots.loadLongLong(file));
+		patchInt(file, 4, Snapshots.VERSION);
+		patchInt(file, Snapshots.HASH, Snapshots.HASH_FUNCTION + 1);
+		assertThrows(IOException.class, () -> Snapshots.loadLongLong(file));
+		patchInt(file, Snapshots.HASH, Snapshots.HASH_FUNCTION);
+		try (FileChannel c = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			c.truncate(c.size() - 1);
+		}
+		assertThrows(IOException.class, () -> Snapshots.loadLongLong(file));
+	}
+
+	private static void patchInt(Path file, long pos, int value) throws IOException {
+		try (FileChannel c = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			ByteBuffer b = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(value);
+			b.flip();
+			c.write(b, pos);
+		}
+	}
+
+	@Test
+	/*
+	 * A loaded table is read-only, and refuses to be used once closed.
+	 */
+	void testReadOnlyAndClose() throws IOException {
+		Path file = this.dir.resolve("ss.snapshot");
+		OpenAddressingHash2K<String, String> h = new OpenAddressingHash2K<>();
+		h.put("a", "b");
+		Snapshots.save(h, file);
+		MappedStringHash2K m = Snapshots.loadString(file);
+		assertThrows(UnsupportedOperationException.class, () -> m.put("a", "c"));
+		assertEquals("b", m.get("a"));
+		m.close();
+		m.close();
+		assertThrows(IllegalStateException.class, () -> m.get("a"));
+	}
+}
@@ -0,0 +1,367 @@
+package hashtables;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * A table for more entries than fit in the heap. The keys and values are
+ * serialized (see Codec) into append-only segment files that are mapped into
+ * memory, so the operating system pages them in and out as needed. The heap
+ * only holds a compact index, 12 bytes per slot: the mixed hash of each key as
+ * a fingerprint, and where its record is. A get() probes the index, compares
+ * the key bytes of the records whose fingerprint matches, and decodes the
+ * value. A ClockCache of the most recently used entries, cacheEntries at most,
+ * saves the decoding (and the disk read) for hot keys.
+ *
+ * A put() of a key that is already in the table appends a new record and
+ * leaves the old one behind as garbage. When less than half of a full
+ * segment is still live, its live records are copied to the end of the
+ * current segment and the file is deleted.
+ *
+ * A spill area, not a persistent store: the segment files are written to
+ * directory and deleted again by close(); nothing is ever read back from a
+ * previous run. Lookups must not race with close(), which unmaps the files.
+ */
+public class SpillingHash2K<K, V> implements HashTable<K, V>, AutoCloseable {
+	/*
+	 * Turns keys or values into bytes and back.
+	 */
+	public interface Codec<T> {
+		byte[] encode(T t);
+
+		T decode(byte[] bytes);
+	}
+
+	public static final Codec<String> UTF_8 = new Codec<>() {
+		@Override
+		public byte[] encode(String s) {
+			return s.getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public String decode(byte[] bytes) {
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+
+	private static final int EMPTY = 0;
+	private static final int INITIAL_CAPACITY = 1024; // Must be a power of two.
+	private static final double MAX_LOAD_FACTOR = 0.75;
+	private static final int DEFAULT_CACHE_ENTRIES = 1 << 16;
+	private static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+	// Hash, key length and value length.
+	private static final int RECORD_HEADER_BYTES = 12;
+	// Compact a full segment when less than this share of it is live.
+	private static final double MIN_LIVE_RATIO = 0.5;
+
+	// One segment file, mapped as a whole.
+	private static final class Segment {
+		final Path file;
+		final ByteBuffer buffer;
+		// Bytes appended so far, and how many of them still belong to live records.
+		int used;
+		int live;
+
+		Segment(Path file, int bytes) throws IOException {
+			this.file = file;
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+					StandardOpenOption.WRITE)) {
+				// Mapping past the end grows the (sparse) file.
+				this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+			}
+		}
+
+		void delete() throws IOException {
+			DirectBuffers.free(this.buffer);
+			Files.delete(this.file);
+		}
+	}
+
+	private final Path directory;
+	private final Codec<K> keyCodec;
+	private final Codec<V> valueCodec;
+	private final int segmentBytes;
+	private final ClockCache<K, V> cache;
+
+	// The index: the mixed hash of each key (EMPTY, which is never a mixed hash
+	// here, marks an empty slot) and the segment id and offset of its record.
+	private int[] hashes;
+	private long[] locations;
+	private int size;
+
+	// By segment id; null once a segment has been compacted away.
+	private List<Segment> segments = new ArrayList<>();
+	private Segment active;
+
+	public SpillingHash2K(Path directory, Codec<K> keyCodec, Codec<V> valueCodec) {
+		this(directory, keyCodec, valueCodec, DEFAULT_CACHE_ENTRIES, DEFAULT_SEGMENT_BYTES);
+	}
+
+	/*
+	 * Keeps up to cacheEntries entries in memory and writes segment files of
+	 * segmentBytes, which limits the size of a single entry.
+	 */
+	public SpillingHash2K(Path directory, Codec<K> keyCodec, Codec<V> valueCodec, int cacheEntries,
+			int segmentBytes) {
+		this.directory = directory;
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		this.segmentBytes = segmentBytes;
+		this.cache = new ClockCache<>(cacheEntries);
+		this.hashes = new int[INITIAL_CAPACITY];
+		this.locations = new long[INITIAL_CAPACITY];
+		this.size = 0;
+		newSegment();
+	}
+
+	private void newSegment() {
+		int id = this.segments.size();
+		try {
+			this.active = new Segment(this.directory.resolve(String.format("segment-%06d.dat", id)),
+					this.segmentBytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.segments.add(this.active);
+	}
+
+	private static int hash(Object key) {
+		int hash = HashUtils.mix(key.hashCode());
+		return hash != EMPTY ? hash : 1;
+	}
+
+	private static long location(int segment, int offset) {
+		return (long) segment << 32 | offset;
+	}
+
+	private Segment segment(long location) {
+		return this.segments.get((int) (location >>> 32));
+	}
+
+	// The number of bytes the record at location takes up.
+	private int recordBytes(long location) {
+		ByteBuffer b = segment(location).buffer;
+		int offset = (int) location;
+		return RECORD_HEADER_BYTES + b.getInt(offset + 4) + b.getInt(offset + 8);
+	}
+
+	// Appends a record and returns its location.
+	private long append(int hash, byte[] key, byte[] value) {
+		int bytes = RECORD_HEADER_BYTES + key.length + value.length;
+		if (bytes > this.segmentBytes) {
+			throw new IllegalArgumentException("Entry of " + bytes + " bytes does not fit in a segment");
+		}
+		if (this.active.used + bytes > this.segmentBytes) {
+			Segment full = this.active;
+			newSegment();
+			compactIfSparse(full);
+		}
+		Segment s = this.active;
+		int offset = s.used;
+		s.buffer.putInt(offset, hash);
+		s.buffer.putInt(offset + 4, key.length);
+		s.buffer.putInt(offset + 8, value.length);
+		s.buffer.put(offset + RECORD_HEADER_BYTES, key);
+		s.buffer.put(offset + RECORD_HEADER_BYTES + key.length, value);
+		s.used += bytes;
+		s.live += bytes;
+		return location(this.segments.size() - 1, offset);
+	}
+
+	private boolean keyEquals(long location, byte[] key) {
+		ByteBuffer b = segment(location).buffer;
+		int offset = (int) location;
+		if (b.getInt(offset + 4) != key.length) {
+			return false;
+		}
+		offset += RECORD_HEADER_BYTES;
+		for (int i = 0; i < key.length; i++) {
+			if (b.get(offset + i) != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Returns the slot holding key, or the empty slot where it belongs.
+	private int slotFor(int hash, byte[] key) {
+		int mask = this.hashes.length - 1;
+		int idx = hash & mask;
+		while (this.hashes[idx] != EMPTY) {
+			if (this.hashes[idx] == hash && keyEquals(this.locations[idx], key)) {
+				return idx;
+			}
+			idx = idx + 1 & mask;
+		}
+		return idx;
+	}
+
+	@Override
+	public void put(K key, V value) {
+		segments();
+		int hash = hash(key);
+		byte[] k = this.keyCodec.encode(key);
+		long location = append(hash, k, this.valueCodec.encode(value));
+		int idx = slotFor(hash, k);
+		if (this.hashes[idx] != EMPTY) {
+			long old = this.locations[idx];
+			this.locations[idx] = location;
+			Segment s = segment(old);
+			s.live -= recordBytes(old);
+			compactIfSparse(s);
+		} else {
+			this.hashes[idx] = hash;
+			this.locations[idx] = location;
+			this.size++;
+			if (this.hashes.length * MAX_LOAD_FACTOR < this.size) {
+				rehash(this.hashes.length * 2);
+			}
+		}
+		this.cache.put(key, value);
+	}
+
+	@Override
+	public V get(K key) {
+		segments();
+		V value = this.cache.get(key);
+		if (value != null) {
+			return value;
+		}
+		int hash = hash(key);
+		byte[] k = this.keyCodec.encode(key);
+		int idx = slotFor(hash, k);
+		if (this.hashes[idx] == EMPTY) {
+			return null;
+		}
+		long location = this.locations[idx];
+		ByteBuffer b = segment(location).buffer;
+		int offset = (int) location;
+		byte[] v = new byte[b.getInt(offset + 8)];
+		b.get(offset + RECORD_HEADER_BYTES + k.length, v);
+		value = this.valueCodec.decode(v);
+		this.cache.put(key, value);
+		return value;
+	}
+
+	// Moves every index entry into new arrays of the given capacity; the
+	// stored hashes spare reading any key back.
+	private void rehash(int capacity) {
+		int[] newHashes = new int[capacity];
+		long[] newLocations = new long[capacity];
+		for (int i = 0; i < this.hashes.length; i++) {
+			if (this.hashes[i] != EMPTY) {
+				int idx = this.hashes[i] & capacity - 1;
+				while (newHashes[idx] != EMPTY) {
+					idx = idx + 1 & capacity - 1;
+				}
+				newHashes[idx] = this.hashes[i];
+				newLocations[idx] = this.locations[i];
+			}
+		}
+		this.hashes = newHashes;
+		this.locations = newLocations;
+	}
+
+	// Copies the live records of a full segment to the active one and deletes
+	// it, if little enough of it is live.
+	private void compactIfSparse(Segment s) {
+		if (s == this.active || s.live >= s.used * MIN_LIVE_RATIO) {
+			return;
+		}
+		int id = this.segments.indexOf(s);
+		int mask = this.hashes.length - 1;
+		for (int offset = 0; offset < s.used;) {
+			long location = location(id, offset);
+			int hash = s.buffer.getInt(offset);
+			int keyBytes = s.buffer.getInt(offset + 4);
+			int valueBytes = s.buffer.getInt(offset + 8);
+			// A record is live if the index still points at it.
+			int idx = hash & mask;
+			while (this.hashes[idx] != EMPTY && this.locations[idx] != location) {
+				idx = idx + 1 & mask;
+			}
+			if (this.hashes[idx] != EMPTY) {
+				byte[] k = new byte[keyBytes];
+				byte[] v = new byte[valueBytes];
+				s.buffer.get(offset + RECORD_HEADER_BYTES, k);
+				s.buffer.get(offset + RECORD_HEADER_BYTES + keyBytes, v);
+				this.locations[idx] = append(hash, k, v);
+			}
+			offset += RECORD_HEADER_BYTES + keyBytes + valueBytes;
+		}
+		this.segments.set(id, null);
+		try {
+			s.delete();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private List<Segment> segments() {
+		if (this.segments == null) {
+			throw new IllegalStateException("Table has been closed");
+		}
+		return this.segments;
+	}
+
+	/*
+	 * Bytes of segment files currently on disk (or in the page cache).
+	 */
+	public long diskBytes() {
+		long bytes = 0;
+		for (Segment s : segments()) {
+			if (s != null) {
+				bytes += s.used;
+			}
+		}
+		return bytes;
+	}
+
+	/*
+	 * Bytes of heap the index takes up, not counting the cache.
+	 */
+	public long indexBytes() {
+		return (long) this.hashes.length * (Integer.BYTES + Long.BYTES);
+	}
+
+	/*
+	 * Unmaps and deletes the segment files. The table cannot be used afterwards;
+	 * closing it again does nothing.
+	 */
+	@Override
+	public void close() {
+		if (this.segments == null) {
+			return;
+		}
+		List<Segment> s = this.segments;
+		this.segments = null;
+		this.active = null;
+		IOException failure = null;
+		for (Segment segment : s) {
+			if (segment != null) {
+				try {
+					segment.delete();
+				} catch (IOException e) {
+					failure = e;
+				}
+			}
+		}
+		if (failure != null) {
+			throw new UncheckedIOException(failure);
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
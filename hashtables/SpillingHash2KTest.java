@@ -0,0 +1,113 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpillingHash2KTest extends HashTableTest {
+	// Small, so that the HashTableTest cases go through several segments and
+	// read almost everything back from them.
+	private static final int CACHE_ENTRIES = 64;
+	private static final int SEGMENT_BYTES = 1 << 20;
+
+	private static final SpillingHash2K.Codec<Integer> INT = new SpillingHash2K.Codec<>() {
+		@Override
+		public byte[] encode(Integer i) {
+			return ByteBuffer.allocate(Integer.BYTES).putInt(i).array();
+		}
+
+		@Override
+		public Integer decode(byte[] bytes) {
+			return ByteBuffer.wrap(bytes).getInt();
+		}
+	};
+
+	@TempDir
+	Path dir;
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return new HashTableFactory() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public <K, V> HashTable<K, V> newInstance() {
+				// The HashTableTest cases only use Integer keys and values.
+				return (HashTable<K, V>) new SpillingHash2K<>(newDirectory(), INT, INT, CACHE_ENTRIES,
+						SEGMENT_BYTES);
+			}
+		};
+	}
+
+	private Path newDirectory() {
+		try {
+			return Files.createTempDirectory(this.dir, "spill");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Test
+	/*
+	 * Overwriting the same keys over and over leaves garbage behind that
+	 * compaction has to reclaim, without losing the latest values.
+	 */
+	void testCompaction() {
+		try (SpillingHash2K<String, String> h = new SpillingHash2K<>(newDirectory(), SpillingHash2K.UTF_8,
+				SpillingHash2K.UTF_8, CACHE_ENTRIES, 1 << 16)) {
+			for (int round = 0; round < 100; round++) {
+				for (int k = 0; k < 1000; k++) {
+					h.put("key" + k, "value" + k + "/" + round);
+				}
+			}
+			assertEquals(1000, h.size());
+			// One round is about 20 KB of records.
+			assertTrue(h.diskBytes() < 1 << 18, "disk bytes " + h.diskBytes());
+			for (int k = 0; k < 1000; k++) {
+				assertEquals("value" + k + "/99", h.get("key" + k));
+			}
+			assertNull(h.get("key1000"));
+		}
+	}
+
+	@Test
+	/*
+	 * close() deletes the segment files, after which the table cannot be used.
+	 */
+	void testClose() throws IOException {
+		Path directory = newDirectory();
+		SpillingHash2K<String, String> h = new SpillingHash2K<>(directory, SpillingHash2K.UTF_8,
+				SpillingHash2K.UTF_8, CACHE_ENTRIES, SEGMENT_BYTES);
+		for (int k = 0; k < 100000; k++) {
+			h.put("key" + k, "value" + k);
+		}
+		h.close();
+		h.close();
+		try (Stream<Path> files = Files.list(directory)) {
+			assertFalse(files.findAny().isPresent());
+		}
+		assertThrows(IllegalStateException.class, () -> h.get("key1"));
+	}
+
+	@Test
+	/*
+	 * An entry larger than a segment cannot be stored.
+	 */
+	void testEntryTooLarge() {
+		try (SpillingHash2K<String, String> h = new SpillingHash2K<>(newDirectory(), SpillingHash2K.UTF_8,
+				SpillingHash2K.UTF_8, CACHE_ENTRIES, 1024)) {
+			assertThrows(IllegalArgumentException.class, () -> h.put("key", "v".repeat(1024)));
+		}
+	}
+}
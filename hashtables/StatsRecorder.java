@@ -0,0 +1,57 @@
+package hashtables;
+
+/*
+ * Collects the figures behind HashTable.stats() for one table.
+ *
+ * Recording is switched on for the whole JVM with -Dhashtables.stats=true. The
+ * tables guard every call with `if (StatsRecorder.ENABLED)`; the flag is a
+ * static final constant, so when it is false the JIT drops those blocks, and
+ * the probe counters that only feed them, from the compiled hot paths, and the
+ * tables do not even allocate a recorder.
+ *
+ * Not thread-safe; a concurrent reader (such as JMX) may see slightly
+ * inconsistent figures.
+ */
+final class StatsRecorder {
+	static final boolean ENABLED = Boolean.getBoolean("hashtables.stats");
+	// Probe lengths 0 to HISTOGRAM_SIZE - 2 are counted exactly, longer ones in
+	// the last bucket.
+	static final int HISTOGRAM_SIZE = 33;
+
+	private final long[] hitProbes = new long[HISTOGRAM_SIZE];
+	private final long[] missProbes = new long[HISTOGRAM_SIZE];
+	private int longestProbe;
+	private int resizes;
+	private long resizeNanos;
+
+	/*
+	 * Records a get() that found its key after comparing probes keys (1 if the
+	 * key was in its home slot).
+	 */
+	void recordHit(int probes) {
+		this.hitProbes[Math.min(probes, HISTOGRAM_SIZE - 1)]++;
+		this.longestProbe = Math.max(this.longestProbe, probes);
+	}
+
+	/*
+	 * Records a get() that did not find its key after comparing probes keys.
+	 */
+	void recordMiss(int probes) {
+		this.missProbes[Math.min(probes, HISTOGRAM_SIZE - 1)]++;
+		this.longestProbe = Math.max(this.longestProbe, probes);
+	}
+
+	/*
+	 * Records a resize that began at System.nanoTime() startNanos and has just
+	 * finished.
+	 */
+	void recordResize(long startNanos) {
+		this.resizes++;
+		this.resizeNanos += System.nanoTime() - startNanos;
+	}
+
+	HashTableStats snapshot(int size, int capacity) {
+		return new HashTableStats(this.hitProbes.clone(), this.missProbes.clone(), this.longestProbe, this.resizes,
+				this.resizeNanos, size, capacity);
+	}
+}
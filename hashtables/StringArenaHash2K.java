@@ -0,0 +1,304 @@
+package hashtables;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Open addressing with linear probing, specialized for String keys: instead of
+ * keeping the String objects, put() copies the UTF-8 bytes of each key into
+ * one growing byte arena, and the table keeps the mixed hash, arena offset and
+ * length of every key side by side in one int array, so that a probe finds
+ * all three in the same cache line, next to an array of the values. A key
+ * thus costs its bytes plus 12 bytes per slot, instead of a String, its byte[]
+ * and an entry object, and the garbage collector has three arrays to trace
+ * instead of three objects per key.
+ *
+ * Keys can be looked up as any CharSequence (a StringBuilder, a CharBuffer
+ * over a parsed line, ...) or as a UTF-8 byte[] slice, so callers do not have
+ * to create a String just to query. The hash of a key is the hashCode() of
+ * the String with its chars, so String lookups use the one the String has
+ * cached. Probes compare the stored hash and length first; byte[] lookups
+ * then compare the bytes with Arrays.equals over ranges, which the JIT
+ * vectorizes, and CharSequence lookups compare char by char. Neither
+ * allocates for ASCII keys; lookups of other keys encode or decode them.
+ *
+ * Keys are never removed, so the arena only grows, and put() of a key that is
+ * already there only replaces the value.
+ */
+public class StringArenaHash2K<V> implements HashTable<String, V> {
+	private static final int EMPTY = 0;
+	private static final int INITIAL_CAPACITY = 4; // Must be a power of two.
+	private static final double MAX_LOAD_FACTOR = 0.75;
+	// Arena bytes to reserve per expected key.
+	private static final int EXPECTED_KEY_BYTES = 16;
+	private static final int MAX_ARENA_BYTES = Integer.MAX_VALUE - 8;
+
+	// Per slot, the mixed hash of the key (EMPTY, which is never a mixed hash
+	// here, marks an empty slot), where its bytes start in the arena and how
+	// many there are.
+	private static final int SLOT_INTS = 3;
+	private static final int HASH = 0;
+	private static final int OFFSET = 1;
+	private static final int LENGTH = 2;
+
+	private int[] slots;
+	private Object[] values;
+	private byte[] arena;
+	private int arenaUsed;
+	private int size;
+
+	public StringArenaHash2K() {
+		this(0);
+	}
+
+	public StringArenaHash2K(int expectedSize) {
+		int capacity = HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY);
+		this.slots = new int[capacity * SLOT_INTS];
+		this.values = new Object[capacity];
+		this.arena = new byte[Math.max(expectedSize, INITIAL_CAPACITY) * EXPECTED_KEY_BYTES];
+		this.arenaUsed = 0;
+		this.size = 0;
+	}
+
+	// The hash of a key is the String.hashCode() of its chars, mixed, so that
+	// String keys bring it along cached.
+	private static int mix(int hash) {
+		int h = HashUtils.mix(hash);
+		return h != EMPTY ? h : 1;
+	}
+
+	private static int hash(CharSequence key) {
+		if (key instanceof String) {
+			return mix(key.hashCode());
+		}
+		int h = 0;
+		for (int i = 0; i < key.length(); i++) {
+			h = 31 * h + key.charAt(i);
+		}
+		return mix(h);
+	}
+
+	private static int hash(byte[] bytes, int offset, int length) {
+		int h = 0;
+		int bits = 0;
+		for (int i = offset; i < offset + length; i++) {
+			h = 31 * h + bytes[i];
+			bits |= bytes[i];
+		}
+		// Only ASCII bytes are the chars themselves.
+		return bits >= 0 ? mix(h) : mix(new String(bytes, offset, length, StandardCharsets.UTF_8).hashCode());
+	}
+
+	private static boolean isAscii(CharSequence key) {
+		for (int i = 0; i < key.length(); i++) {
+			if (key.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[] utf8(CharSequence key) {
+		return key.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	// Returns the slot holding key, or the empty slot where it belongs, if key
+	// is ASCII. Never finds other keys, since their bytes and chars differ.
+	private int slotFor(int hash, CharSequence key) {
+		int[] s = this.slots;
+		int mask = this.values.length - 1;
+		int length = key.length();
+		int idx = hash & mask;
+		int h;
+		while ((h = s[idx * SLOT_INTS + HASH]) != EMPTY) {
+			if (h == hash && s[idx * SLOT_INTS + LENGTH] == length
+					&& asciiEquals(s[idx * SLOT_INTS + OFFSET], key)) {
+				return idx;
+			}
+			idx = idx + 1 & mask;
+		}
+		return idx;
+	}
+
+	private boolean asciiEquals(int offset, CharSequence key) {
+		for (int i = 0; i < key.length(); i++) {
+			if (this.arena[offset + i] != key.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Returns the slot holding the key in bytes[offset, offset + length), or the
+	// empty slot where it belongs.
+	private int slotFor(int hash, byte[] bytes, int offset, int length) {
+		int[] s = this.slots;
+		int mask = this.values.length - 1;
+		int idx = hash & mask;
+		int h;
+		while ((h = s[idx * SLOT_INTS + HASH]) != EMPTY) {
+			if (h == hash && s[idx * SLOT_INTS + LENGTH] == length) {
+				int o = s[idx * SLOT_INTS + OFFSET];
+				if (Arrays.equals(this.arena, o, o + length, bytes, offset, offset + length)) {
+					return idx;
+				}
+			}
+			idx = idx + 1 & mask;
+		}
+		return idx;
+	}
+
+	private boolean occupied(int idx) {
+		return this.slots[idx * SLOT_INTS + HASH] != EMPTY;
+	}
+
+	@Override
+	public void put(String key, V value) {
+		int hash = hash(key);
+		int idx = slotFor(hash, key);
+		if (occupied(idx)) {
+			this.values[idx] = value;
+			return;
+		}
+		if (!isAscii(key)) {
+			byte[] bytes = utf8(key);
+			put(hash, bytes, 0, bytes.length, value);
+			return;
+		}
+		int length = key.length();
+		int offset = reserve(length);
+		for (int i = 0; i < length; i++) {
+			this.arena[offset + i] = (byte) key.charAt(i);
+		}
+		insert(idx, hash, offset, length, value);
+	}
+
+	/*
+	 * Maps the key whose UTF-8 encoding is bytes[offset, offset + length) to
+	 * value.
+	 */
+	public void put(byte[] bytes, int offset, int length, V value) {
+		put(hash(bytes, offset, length), bytes, offset, length, value);
+	}
+
+	private void put(int hash, byte[] bytes, int offset, int length, V value) {
+		int idx = slotFor(hash, bytes, offset, length);
+		if (occupied(idx)) {
+			this.values[idx] = value;
+			return;
+		}
+		int arenaOffset = reserve(length);
+		System.arraycopy(bytes, offset, this.arena, arenaOffset, length);
+		insert(idx, hash, arenaOffset, length, value);
+	}
+
+	// Makes room for length more bytes in the arena and returns where they go.
+	private int reserve(int length) {
+		if (this.arena.length - this.arenaUsed < length) {
+			if (MAX_ARENA_BYTES - this.arenaUsed < length) {
+				throw new IllegalStateException("Key arena is full");
+			}
+			int newLength = (int) Math.min(Math.max(2L * this.arena.length, (long) this.arenaUsed + length),
+					MAX_ARENA_BYTES);
+			this.arena = Arrays.copyOf(this.arena, newLength);
+		}
+		int offset = this.arenaUsed;
+		this.arenaUsed += length;
+		return offset;
+	}
+
+	private void insert(int idx, int hash, int offset, int length, V value) {
+		this.slots[idx * SLOT_INTS + HASH] = hash;
+		this.slots[idx * SLOT_INTS + OFFSET] = offset;
+		this.slots[idx * SLOT_INTS + LENGTH] = length;
+		this.values[idx] = value;
+		this.size++;
+		if (this.values.length * MAX_LOAD_FACTOR < this.size) {
+			rehash(this.values.length * 2);
+		}
+	}
+
+	@Override
+	public V get(String key) {
+		return get((CharSequence) key);
+	}
+
+	/*
+	 * The value of the key with the same chars as key, or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(CharSequence key) {
+		int hash = hash(key);
+		int idx = slotFor(hash, key);
+		if (occupied(idx)) {
+			return (V) this.values[idx];
+		}
+		if (isAscii(key)) {
+			return null;
+		}
+		byte[] bytes = utf8(key);
+		idx = slotFor(hash, bytes, 0, bytes.length);
+		return occupied(idx) ? (V) this.values[idx] : null;
+	}
+
+	/*
+	 * The value of the key whose UTF-8 encoding is bytes[offset, offset +
+	 * length), or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(byte[] bytes, int offset, int length) {
+		int idx = slotFor(hash(bytes, offset, length), bytes, offset, length);
+		return occupied(idx) ? (V) this.values[idx] : null;
+	}
+
+	// Moves every entry into new arrays of the given capacity. The stored hashes
+	// spare looking at the keys at all.
+	private void rehash(int capacity) {
+		int[] newSlots = new int[capacity * SLOT_INTS];
+		Object[] newValues = new Object[capacity];
+		for (int i = 0; i < this.values.length; i++) {
+			int hash = this.slots[i * SLOT_INTS + HASH];
+			if (hash != EMPTY) {
+				int idx = hash & capacity - 1;
+				while (newSlots[idx * SLOT_INTS + HASH] != EMPTY) {
+					idx = idx + 1 & capacity - 1;
+				}
+				System.arraycopy(this.slots, i * SLOT_INTS, newSlots, idx * SLOT_INTS, SLOT_INTS);
+				newValues[idx] = this.values[i];
+			}
+		}
+		this.slots = newSlots;
+		this.values = newValues;
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		HashUtils.ensurePowerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.values.length,
+				this::rehash);
+	}
+
+	/*
+	 * Also gives back the unused end of the arena.
+	 */
+	@Override
+	public void trimToSize() {
+		HashUtils.trimPowerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.values.length,
+				this::rehash);
+		if (this.arenaUsed < this.arena.length) {
+			this.arena = Arrays.copyOf(this.arena, this.arenaUsed);
+		}
+	}
+
+	/*
+	 * Bytes of key data in the arena.
+	 */
+	public int arenaBytes() {
+		return this.arenaUsed;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
@@ -0,0 +1,94 @@
+package hashtables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class StringArenaHash2KTest {
+
+	private static String randomKey(SplittableRandom rng, boolean ascii) {
+		char[] c = new char[rng.nextInt(1, 33)];
+		for (int i = 0; i < c.length; i++) {
+			c[i] = ascii || rng.nextInt(4) != 0 ? (char) rng.nextInt('a', 'z' + 1) : (char) rng.nextInt(0x80, 0xD800);
+		}
+		return new String(c);
+	}
+
+	@Test
+	/*
+	 * Inserts keys of length 1 to 32, some of them duplicates and some not
+	 * ASCII, and checks size and values against a HashMap.
+	 */
+	void testPutGet() {
+		for (boolean ascii : new boolean[] { true, false }) {
+			SplittableRandom rng = new SplittableRandom(1);
+			StringArenaHash2K<Integer> h = new StringArenaHash2K<>();
+			Map<String, Integer> expected = new HashMap<>();
+			for (int i = 0; i < 100000; i++) {
+				String k = randomKey(rng, ascii);
+				h.put(k, i);
+				expected.put(k, i);
+			}
+			assertEquals(expected.size(), h.size());
+			for (Map.Entry<String, Integer> e : expected.entrySet()) {
+				assertEquals(e.getValue(), h.get(e.getKey()));
+			}
+			for (int i = 0; i < 100000; i++) {
+				String k = randomKey(rng, ascii);
+				assertEquals(expected.get(k), h.get(k));
+			}
+		}
+	}
+
+	@Test
+	/*
+	 * A key put as a String is found through any CharSequence with the same
+	 * chars and through any byte[] slice with its UTF-8 encoding, and the other
+	 * way round.
+	 */
+	void testLookupWithoutString() {
+		StringArenaHash2K<String> h = new StringArenaHash2K<>();
+		for (String k : new String[] { "", "a", "hello", "grüße", "日本語", "emoji 😀" }) {
+			h.put(k, k);
+			assertEquals(k, h.get(new StringBuilder(k)));
+			byte[] utf8 = k.getBytes(StandardCharsets.UTF_8);
+			byte[] padded = new byte[utf8.length + 6];
+			System.arraycopy(utf8, 0, padded, 3, utf8.length);
+			assertEquals(k, h.get(padded, 3, utf8.length));
+			assertNull(h.get(new StringBuilder(k).append('x')));
+		}
+		byte[] line = "key1,key2,key3".getBytes(StandardCharsets.UTF_8);
+		h.put(line, 5, 4, "second");
+		assertEquals("second", h.get("key2"));
+		assertEquals("second", h.get(line, 5, 4));
+		assertNull(h.get(line, 0, 4));
+		assertEquals(7, h.size());
+	}
+
+	@Test
+	/*
+	 * trimToSize() gives back the spare slots and arena bytes without losing a
+	 * key.
+	 */
+	void testTrimToSize() {
+		StringArenaHash2K<Integer> h = new StringArenaHash2K<>(100000);
+		for (int i = 0; i < 1000; i++) {
+			h.put("key" + i, i);
+		}
+		h.trimToSize();
+		int bytes = 0;
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, h.get("key" + i));
+			bytes += ("key" + i).length();
+		}
+		assertEquals(bytes, h.arenaBytes());
+		h.put("one more", -1);
+		assertEquals(-1, h.get("one more"));
+	}
+}
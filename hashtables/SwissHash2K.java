@@ -0,0 +1,185 @@
+package hashtables;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/*
+ * A "Swiss table": open addressing where every slot has a control byte in a
+ * separate byte[]. A control byte is either EMPTY or holds 7 bits of the key's
+ * hash (h2). The remaining bits of the hash (h1) select where probing starts.
+ *
+ * Probing reads 8 control bytes at a time as one long and matches all of them
+ * against h2 with a few SWAR (SIMD within a register) operations, so one
+ * probe step checks 8 slots, and equals() is only called for slots whose
+ * 7-bit tag matches (false positives 1 in 128). The control array is 1/8 of
+ * the size of a reference array, so it mostly stays in L1.
+ *
+ * The control array has GROUP_WIDTH extra bytes at the end that mirror the
+ * first bytes, so a group starting near the end can be read in one go.
+ */
+public class SwissHash2K<K, V> implements HashTable<K, V> {
+	private static final int GROUP_WIDTH = Long.BYTES;
+	// Must be a power of two and at least GROUP_WIDTH.
+	private static final int INITIAL_CAPACITY = 16;
+	private static final double MAX_LOAD_FACTOR = 0.875;
+
+	private static final byte EMPTY = (byte) 0x80;
+	private static final long LSB = 0x0101010101010101L;
+	private static final long MSB = 0x8080808080808080L;
+	private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class,
+			ByteOrder.LITTLE_ENDIAN);
+
+	private byte[] ctrl;
+	private Object[] keys;
+	private Object[] values;
+	private int size;
+
+	public SwissHash2K() {
+		this(0);
+	}
+
+	public SwissHash2K(int expectedSize) {
+		allocate(HashUtils.powerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY));
+		this.size = 0;
+	}
+
+	private void allocate(int capacity) {
+		this.ctrl = new byte[capacity + GROUP_WIDTH];
+		Arrays.fill(this.ctrl, EMPTY);
+		this.keys = new Object[capacity];
+		this.values = new Object[capacity];
+	}
+
+	private void growTable() {
+		rehash(this.keys.length * 2);
+	}
+
+	// Goes straight to insert(), which also rebuilds the control bytes.
+	@SuppressWarnings("unchecked")
+	private void rehash(int capacity) {
+		byte[] oldCtrl = this.ctrl;
+		Object[] oldKeys = this.keys;
+		Object[] oldValues = this.values;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldCtrl[i] != EMPTY) {
+				insert((K) oldKeys[i], (V) oldValues[i], HashUtils.mix(oldKeys[i].hashCode()));
+			}
+		}
+	}
+
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		HashUtils.ensurePowerOfTwoCapacity(expectedSize, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.keys.length,
+				this::rehash);
+	}
+
+	@Override
+	public void trimToSize() {
+		HashUtils.trimPowerOfTwoCapacity(this.size, MAX_LOAD_FACTOR, INITIAL_CAPACITY, this.keys.length, this::rehash);
+	}
+
+	private static int h1(int hash) {
+		return hash >>> 7;
+	}
+
+	private static byte h2(int hash) {
+		return (byte) (hash & 0x7F);
+	}
+
+	private long group(int pos) {
+		return (long) LONG_VIEW.get(this.ctrl, pos);
+	}
+
+	// High bit set in every byte of group that equals tag. May give false
+	// positives above a true match, which the caller filters out with equals().
+	private static long matchTag(long group, byte tag) {
+		long x = group ^ LSB * (tag & 0xFF);
+		return x - LSB & ~x & MSB;
+	}
+
+	// High bit set in every EMPTY byte of group. EMPTY is the only control
+	// byte with the high bit set.
+	private static long matchEmpty(long group) {
+		return group & MSB;
+	}
+
+	private void setCtrl(int idx, byte tag) {
+		this.ctrl[idx] = tag;
+		if (idx < GROUP_WIDTH) {
+			this.ctrl[this.keys.length + idx] = tag;
+		}
+	}
+
+	@Override
+	public void put(K key, V value) {
+		int idx = indexOf(key);
+		if (idx >= 0) {
+			this.values[idx] = value;
+			return;
+		}
+		insert(key, value, HashUtils.mix(key.hashCode()));
+		this.size++;
+		if (loadFactorTooHigh()) {
+			growTable();
+		}
+	}
+
+	// Inserts a key known not to be in the table. Does not touch size.
+	private void insert(K key, V value, int hash) {
+		int mask = this.keys.length - 1;
+		int pos = h1(hash) & mask;
+		int step = 0;
+		long empties;
+		while ((empties = matchEmpty(group(pos))) == 0) {
+			step += GROUP_WIDTH;
+			pos = pos + step & mask;
+		}
+		int idx = pos + (Long.numberOfTrailingZeros(empties) >>> 3) & mask;
+		setCtrl(idx, h2(hash));
+		this.keys[idx] = key;
+		this.values[idx] = value;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(K key) {
+		int idx = indexOf(key);
+		return idx >= 0 ? (V) this.values[idx] : null;
+	}
+
+	private int indexOf(K key) {
+		int hash = HashUtils.mix(key.hashCode());
+		byte tag = h2(hash);
+		int mask = this.keys.length - 1;
+		int pos = h1(hash) & mask;
+		int step = 0;
+		while (true) {
+			long group = group(pos);
+			for (long m = matchTag(group, tag); m != 0; m &= m - 1) {
+				int idx = pos + (Long.numberOfTrailingZeros(m) >>> 3) & mask;
+				if (this.keys[idx].equals(key)) {
+					return idx;
+				}
+			}
+			if (matchEmpty(group) != 0) {
+				return -1;
+			}
+			// Triangular probing over groups visits every slot once.
+			step += GROUP_WIDTH;
+			pos = pos + step & mask;
+		}
+	}
+
+	private boolean loadFactorTooHigh() {
+		return this.keys.length * MAX_LOAD_FACTOR < this.size;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+}
@@ -0,0 +1,9 @@
+package hashtables;
+
+class SwissHash2KTest extends HashTableTest {
+
+	@Override
+	HashTableFactory getHashTableFactory() {
+		return SwissHash2K::new;
+	}
+}
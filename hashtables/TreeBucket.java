@@ -0,0 +1,124 @@
+package hashtables;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+
+/*
+ * A separate-chaining bucket that has grown too long to scan, typically
+ * because many keys share the same hash code (hash flooding).
+ *
+ * Keys are kept in a balanced tree ordered by their full mixed hash, which the
+ * table passes in and the bucket stores with each entry, then by their natural
+ * order when they are Comparable to each other. Keys that still cannot be told
+ * apart (equal hashes, not Comparable) share a tree node and are scanned with
+ * equals(), so for such keys a tree bucket is no better than a list.
+ *
+ * Chains only shrink when their table grows. growTable() rebuilds every bucket
+ * from scratch, so a tree whose keys spread out over the larger table turns
+ * back into a plain chain.
+ */
+final class TreeBucket<K, V> {
+	// A chain is converted to a tree when it gets longer than this.
+	static final int TREEIFY_THRESHOLD = 8;
+
+	private static final Comparator<Entry<?, ?>> ORDER = TreeBucket::compareEntries;
+
+	/*
+	 * Receives the entries of a bucket, with the mixed hashes of their keys.
+	 */
+	interface EntryConsumer<K, V> {
+		void accept(int hash, K key, V value);
+	}
+
+	private static class Entry<K, V> {
+		public final int hash;
+		public K key;
+		public V value;
+
+		public Entry(int hash, K key, V value) {
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+	// Maps the first entry of every group to the group. Lookups search with an
+	// entry that only holds the hash and the key.
+	private final TreeMap<Entry<K, V>, List<Entry<K, V>>> tree = new TreeMap<>(ORDER);
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static int compareEntries(Entry<?, ?> a, Entry<?, ?> b) {
+		int c = Integer.compare(a.hash, b.hash);
+		if (c != 0) {
+			return c;
+		}
+		Class<?> ca = a.key.getClass();
+		Class<?> cb = b.key.getClass();
+		if (ca != cb) {
+			return ca.getName().compareTo(cb.getName());
+		}
+		if (a.key instanceof Comparable) {
+			return ((Comparable) a.key).compareTo(b.key);
+		}
+		return 0;
+	}
+
+	/*
+	 * Maps key, whose mixed hash is hash, to value. Returns true if the key was
+	 * not in the bucket before.
+	 */
+	boolean put(int hash, K key, V value) {
+		Entry<K, V> entry = new Entry<>(hash, key, value);
+		List<Entry<K, V>> group = this.tree.get(entry);
+		if (group == null) {
+			group = new ArrayList<>(1);
+			this.tree.put(entry, group);
+		} else {
+			for (Entry<K, V> e : group) {
+				if (e.key.equals(key)) {
+					e.value = value;
+					return false;
+				}
+			}
+		}
+		group.add(entry);
+		return true;
+	}
+
+	boolean containsKey(int hash, K key) {
+		List<Entry<K, V>> group = this.tree.get(new Entry<>(hash, key, null));
+		if (group != null) {
+			for (Entry<K, V> e : group) {
+				if (e.key.equals(key)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	V get(int hash, K key) {
+		List<Entry<K, V>> group = this.tree.get(new Entry<>(hash, key, null));
+		if (group != null) {
+			for (Entry<K, V> e : group) {
+				if (e.key.equals(key)) {
+					return e.value;
+				}
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Calls action for every entry in the bucket.
+	 */
+	void forEach(EntryConsumer<K, V> action) {
+		for (List<Entry<K, V>> group : this.tree.values()) {
+			for (Entry<K, V> e : group) {
+				action.accept(e.hash, e.key, e.value);
+			}
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package hashtables;
+
+import static java.time.Duration.ofSeconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * Tests for tables that convert long chains into trees, using keys with very
+ * few distinct hash codes.
+ */
+abstract class TreeifyingHashTableTest extends HashTableTest {
+	private static final int COLLIDING_KEYS = 50000;
+
+	// Cannot be ordered, so it only gets the benefit of the full hash.
+	private static class UnorderedCollidingKey {
+		private final int v;
+
+		UnorderedCollidingKey(int v) {
+			this.v = v;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.v & 255;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof UnorderedCollidingKey && ((UnorderedCollidingKey) obj).v == this.v;
+		}
+	}
+
+	@Test
+	/*
+	 * Inserts many Comparable keys sharing 16 hash codes, overwrites some of them
+	 * and checks size and values.
+	 *
+	 * Terminates as failure if it takes too long (which is an indication of
+	 * chains that were not converted into trees).
+	 */
+	void testCollidingComparableKeys() {
+		assertTimeoutPreemptively(ofSeconds(2), () -> {
+			HashTable<CollidingKey, Integer> h = getHashTableFactory().newInstance();
+			for (int i = 0; i < COLLIDING_KEYS; i++) {
+				h.put(new CollidingKey(i, 15), Integer.valueOf(i));
+			}
+			for (int i = 0; i < COLLIDING_KEYS; i += 2) {
+				h.put(new CollidingKey(i, 15), Integer.valueOf(-i));
+			}
+			assertEquals(COLLIDING_KEYS, h.size());
+			for (int i = 0; i < COLLIDING_KEYS; i++) {
+				assertEquals(Integer.valueOf(i % 2 == 0 ? -i : i), h.get(new CollidingKey(i, 15)));
+			}
+			assertNull(h.get(new CollidingKey(-1, 15)));
+		});
+	}
+
+	@Test
+	/*
+	 * Keys that share hash codes and are not Comparable must still be found.
+	 */
+	void testCollidingUnorderedKeys() {
+		HashTable<UnorderedCollidingKey, Integer> h = getHashTableFactory().newInstance();
+		for (int i = 0; i < 5000; i++) {
+			h.put(new UnorderedCollidingKey(i), Integer.valueOf(i));
+		}
+		assertEquals(5000, h.size());
+		for (int i = 0; i < 5000; i++) {
+			assertEquals(Integer.valueOf(i), h.get(new UnorderedCollidingKey(i)));
+		}
+		assertNull(h.get(new UnorderedCollidingKey(-1)));
+	}
+}